@@ -0,0 +1,113 @@
+package sirjacob.BlockDEA.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import sirjacob.BlockDEA.BlockDeaClient;
+import sirjacob.BlockDEA.Verdict;
+import sirjacob.BlockDEA.VerdictCache;
+
+/**
+ * Benchmarks the domain check path against a local {@link StubBdeaServer}:
+ * a single uncached lookup, many concurrent uncached lookups, and a cache
+ * hit.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+@Fork(value = 1, jvmArgsAppend = "-Dhttp.maxConnections=64")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LookupBenchmark {
+
+    /**
+     * Stub server and clients shared by all benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Stub {
+
+        /**
+         * Delay added by the stub to each response, in microseconds.
+         */
+        @Param({"0", "1000"})
+        public long latencyMicros;
+
+        StubBdeaServer server;
+        BlockDeaClient uncached;
+        BlockDeaClient cached;
+
+        @Setup(Level.Trial)
+        public void start() throws IOException {
+            server = new StubBdeaServer(0, latencyMicros, 0);
+            uncached = BlockDeaClient.builder("benchmark").easyApiUrl(server.getEasyApiUrl())
+                    .statusApiUrl(server.getStatusApiUrl()).maxConnections(64).cache(null).build();
+            cached = BlockDeaClient.builder("benchmark").easyApiUrl(server.getEasyApiUrl())
+                    .statusApiUrl(server.getStatusApiUrl()).cache(new VerdictCache()).build();
+            cached.checkDomain("gmail.com");
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws IOException {
+            uncached.close();
+            cached.close();
+            server.close();
+        }
+    }
+
+    /**
+     * Per-thread counter, so concurrent threads never check the same domain
+     * and are not coalesced into one request.
+     */
+    @State(Scope.Thread)
+    public static class Domains {
+
+        private static int threads;
+        private final String prefix;
+        private long next;
+
+        public Domains() {
+            synchronized (Domains.class) {
+                prefix = "t" + (threads++) + "-";
+            }
+        }
+
+        String next() {
+            return prefix + (next++) + ".com";
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Verdict singleLookup(Stub stub, Domains domains) throws IOException {
+        return stub.uncached.checkDomain(domains.next());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(16)
+    public Verdict concurrentLookups(Stub stub, Domains domains) throws IOException {
+        return stub.uncached.checkDomain(domains.next());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Verdict cacheHit(Stub stub) throws IOException {
+        return stub.cached.checkDomain("gmail.com");
+    }
+}
@@ -0,0 +1,60 @@
+package sirjacob.BlockDEA.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sirjacob.BlockDEA.KeyStatus;
+import sirjacob.BlockDEA.StatusParser;
+import sirjacob.BlockDEA.Verdict;
+
+/**
+ * Benchmarks parsing of the Status API JSON and the EasyAPI verdict token,
+ * both from strings and straight from response bytes as the client does.
+ * Run with {@code -prof gc} to see allocation per operation.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    private final String status = StubBdeaServer.STATUS_JSON;
+    private final String verdict = "block";
+    private final byte[] statusBytes = status.getBytes(StandardCharsets.UTF_8);
+    private final byte[] verdictBytes = "block\n".getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public KeyStatus statusJson() throws ParseException {
+        return KeyStatus.parse(status);
+    }
+
+    @Benchmark
+    public KeyStatus statusBytes() throws IOException {
+        return StatusParser.parse(statusBytes, 0, statusBytes.length);
+    }
+
+    @Benchmark
+    public Verdict easyApiVerdict() {
+        return Verdict.fromResponse(verdict);
+    }
+
+    @Benchmark
+    public Verdict easyApiVerdictBytes() {
+        return Verdict.fromResponse(verdictBytes, 0, verdictBytes.length);
+    }
+}
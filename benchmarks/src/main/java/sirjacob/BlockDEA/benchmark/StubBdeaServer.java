@@ -0,0 +1,165 @@
+package sirjacob.BlockDEA.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for BDEA that answers {@code /easyapi/txt/{key}/{domain}}
+ * and {@code /status/?apikey=} without spending credits. Domains starting
+ * with "block" are answered with block, everything else with ok. Each request
+ * is delayed by a fixed latency, and a configurable fraction of EasyAPI
+ * requests is answered with fail_server.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class StubBdeaServer implements Closeable {
+
+    /**
+     * Status API response served for every key.
+     */
+    public static final String STATUS_JSON = "{\"request_status\":\"ok\",\"apikeystatus\":\"active\","
+            + "\"servertime\":\"2016-01-22 12:00:00\",\"version\":\"1.3\",\"credits\":\"25000\","
+            + "\"credits_time\":\"2016-01-22 11:55:00\",\"commercial_credit_status\":\"good\","
+            + "\"commercial_credit_status_percent\":0.87}";
+
+    static {
+        //The JDK server writes headers and body separately; without TCP_NODELAY
+        //every response waits on the client's delayed ACK (~40 ms).
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private static final String EASY_API_PATH = "/easyapi/txt/";
+    private static final String STATUS_PATH = "/status/";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMicros;
+    private final double errorRate;
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * Starts a stub on the loopback interface.
+     *
+     * @param port Accepts the port to listen on, or 0 for any free port.
+     * @param latencyMicros Accepts the delay added to every response, in
+     * microseconds.
+     * @param errorRate Accepts the fraction of EasyAPI requests answered with
+     * fail_server, between 0 and 1.
+     * @throws IOException If the server could not be started.
+     */
+    public StubBdeaServer(int port, long latencyMicros, double errorRate) throws IOException {
+        this.latencyMicros = latencyMicros;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "stub-bdea-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(EASY_API_PATH, this::easyApi);
+        server.createContext(STATUS_PATH, this::status);
+        server.start();
+    }
+
+    /**
+     * @return Returns the base URL to pass to the client's easyApiUrl.
+     */
+    public String getEasyApiUrl() {
+        return "http://" + getHost() + EASY_API_PATH;
+    }
+
+    /**
+     * @return Returns the base URL to pass to the client's statusApiUrl.
+     */
+    public String getStatusApiUrl() {
+        return "http://" + getHost() + STATUS_PATH + "?apikey=";
+    }
+
+    /**
+     * @return Returns the number of requests served so far.
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs the stub until the process is killed.
+     * <p>
+     * Usage: {@code StubBdeaServer [port] [latency-micros] [error-rate]}
+     *
+     * @param args the command line arguments
+     * @throws IOException If the server could not be started.
+     */
+    @SuppressWarnings("resource")
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        long latency = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        double errorRate = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        StubBdeaServer stub = new StubBdeaServer(port, latency, errorRate);
+        System.err.println("EasyAPI: " + stub.getEasyApiUrl());
+        System.err.println("Status API: " + stub.getStatusApiUrl());
+    }
+
+    private String getHost() {
+        InetSocketAddress address = server.getAddress();
+        return address.getHostString() + ":" + address.getPort();
+    }
+
+    private void easyApi(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String domain = path.substring(path.lastIndexOf('/') + 1);
+        String response;
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            response = "fail_server";
+        } else if (domain.startsWith("block")) {
+            response = "block";
+        } else {
+            response = "ok";
+        }
+        respond(exchange, response);
+    }
+
+    private void status(HttpExchange exchange) throws IOException {
+        respond(exchange, STATUS_JSON);
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        requests.incrementAndGet();
+        if (latencyMicros > 0) {
+            try {
+                TimeUnit.MICROSECONDS.sleep(latencyMicros);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,1467 @@
+package sirjacob.BlockDEA;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Headless client for BDEA's EasyAPI and Status API. A client is bound to a
+ * single API key and is thread-safe: its cache, in-flight lookups, counters
+ * and status snapshot are all safe for concurrent use, so one instance can be
+ * shared by any number of threads. All requests go through one {@link HttpTransport},
+ * so connections are pooled across domain and status checks. Domain verdicts
+ * are answered from optional {@link LocalRules}, a {@link VerdictCache} and
+ * then an optional {@link VerdictStore}, alongside an optional
+ * {@link BloomFilter} of blocked domains, before BDEA is queried. Concurrent checks of the same
+ * domain share a single lookup, and an optional {@link CreditRateLimiter}
+ * paces the lookups that do reach BDEA. The asynchronous variants run lookups
+ * on the client's executor and never block the calling thread. Every request
+ * to BDEA is timed and reported to the client's {@link ClientMetrics} and to
+ * any registered {@link MetricsListener}. Lookups can be made resilient with a
+ * {@link RetryPolicy}, hedged requests and a {@link CircuitBreaker}. The
+ * EasyAPI can be replaced by another {@link VerdictProvider}.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class BlockDeaClient implements Closeable {
+
+    /**
+     * Latest tested version of Status API that is supported.
+     */
+    public static final double SUPPORTED_STATUS_API_VERSION = 1.3;
+    /**
+     * Base URL of the EasyAPI (Simple Text Output Method).
+     */
+    public static final String EASY_API_URL = "http://check.block-disposable-email.com/easyapi/txt/";
+    /**
+     * Base URL of the Status API.
+     */
+    public static final String STATUS_API_URL = "http://status.block-disposable-email.com/status/?apikey=";
+
+    /**
+     * Default time between background key status refreshes in milliseconds.
+     */
+    public static final long DEFAULT_STATUS_REFRESH_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+    /**
+     * Default longest time a lookup waits for a rate limiter token in
+     * milliseconds.
+     */
+    public static final long DEFAULT_RATE_LIMIT_WAIT = TimeUnit.SECONDS.toMillis(5);
+
+    private static final Logger LOG = Logger.getLogger(BlockDeaClient.class.getName());
+
+    /**
+     * Status API responses are read into a per-thread buffer and parsed from
+     * bytes; {@link EasyApiProvider} does the same for lookups.
+     */
+    private static final ThreadLocal<ResponseBuffer> RESPONSE_BUFFER = ThreadLocal.withInitial(ResponseBuffer::new);
+
+    /**
+     * Number of EasyAPI requests timed before the hedge delay follows the
+     * observed latency instead of the configured minimum.
+     */
+    private static final int HEDGE_MIN_SAMPLES = 50;
+
+    private final String apiKey;
+    private final VerdictProvider provider;
+    private final String statusUrl;
+    private final HttpTransport transport;
+    private final boolean ownsTransport;
+    private final VerdictCache cache;
+    private final VerdictStore store;
+    private final LocalRules rules;
+    private volatile BloomFilter blockFilter;
+    private final AtomicBoolean rebuildingFilter = new AtomicBoolean();
+    private final Queue<String> blockedDuringRebuild = new ConcurrentLinkedQueue<>();
+    private final Executor executor;
+    private final boolean ownsExecutor;
+    private final ConcurrentMap<String, CompletableFuture<Verdict>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicInteger requestsInFlight = new AtomicInteger();
+    private final CreditRateLimiter rateLimiter;
+    private final long rateLimitWait;
+    private final KeyStatusPoller statusPoller;
+    private final ClientMetrics metrics;
+    private final MetricsListener[] listeners;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final Verdict circuitOpenVerdict;
+    private final ExecutorService hedgeExecutor;
+    private final double hedgePercentile;
+    private final long hedgeMinDelay;
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong hedged = new AtomicLong();
+    private final DomainNormalizer normalizer;
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Creates a client with its own {@link UrlConnectionTransport} using the
+     * default timeouts and pool size.
+     *
+     * @param apiKey Accepts the BDEA API key used for every request.
+     * @throws IllegalArgumentException If the key is empty or not
+     * alphanumeric.
+     */
+    public BlockDeaClient(String apiKey) {
+        this(builder(apiKey));
+    }
+
+    private BlockDeaClient(Builder builder) {
+        if (!StringUtils.isAlphanumeric(builder.apiKey)) {
+            throw new IllegalArgumentException("API key must be alphanumeric");
+        }
+        this.apiKey = builder.apiKey;
+        this.statusUrl = builder.statusApiUrl + apiKey;
+        if (builder.transport != null) {
+            this.transport = builder.transport;
+            this.ownsTransport = false;
+        } else {
+            this.transport = new UrlConnectionTransport(builder.connectTimeout, builder.readTimeout, builder.maxConnections);
+            this.ownsTransport = true;
+        }
+        this.provider = builder.provider != null ? builder.provider : new EasyApiProvider(apiKey, transport, builder.easyApiUrl);
+        bind(provider);
+        this.cache = builder.defaultCache ? new VerdictCache() : builder.cache;
+        this.store = builder.store;
+        this.rules = builder.rules;
+        this.blockFilter = builder.blockFilter;
+        if (builder.executor != null) {
+            this.executor = builder.executor;
+            this.ownsExecutor = false;
+        } else {
+            this.executor = LookupExecutors.newDefaultExecutor(builder.transport != null ? UrlConnectionTransport.DEFAULT_MAX_CONNECTIONS : builder.maxConnections);
+            this.ownsExecutor = true;
+        }
+        this.rateLimiter = builder.rateLimiter;
+        this.rateLimitWait = builder.rateLimitWait;
+        this.normalizer = builder.normalizer;
+        this.retryPolicy = builder.retryPolicy;
+        this.circuitBreaker = builder.circuitBreaker;
+        this.circuitOpenVerdict = builder.circuitOpenVerdict;
+        this.hedgePercentile = builder.hedgePercentile;
+        this.hedgeMinDelay = TimeUnit.MILLISECONDS.toNanos(builder.hedgeMinDelay);
+        this.hedgeExecutor = hedgePercentile > 0 ? LookupExecutors.newCachedDaemonPool("bdea-hedge") : null;
+        this.metrics = new ClientMetrics(this);
+        List<MetricsListener> all = new ArrayList<>();
+        all.add(metrics);
+        all.addAll(builder.listeners);
+        this.listeners = all.toArray(new MetricsListener[all.size()]);
+        if (builder.jmxName != null) {
+            try {
+                metrics.register(builder.jmxName);
+            } catch (JMException ex) {
+                LOG.log(Level.WARNING, "Unable to register client metrics with JMX", ex);
+            }
+        }
+        boolean poll = builder.pollStatus || rateLimiter != null || !builder.statusListeners.isEmpty();
+        this.statusPoller = new KeyStatusPoller(this, poll ? builder.statusRefreshInterval : 0, builder.statusListeners);
+        statusPoller.start();
+    }
+
+    /**
+     * @param apiKey Accepts the BDEA API key used for every request.
+     * @return Returns a builder for a client using the supplied key.
+     */
+    public static Builder builder(String apiKey) {
+        return new Builder(apiKey);
+    }
+
+    /**
+     * Checks the supplied domain, answering from the local rules, the cache or
+     * the store when possible and otherwise querying BDEA's EasyAPI. A query uses one credit
+     * unless the domain is one of the free test domains (ok.bdea.cc,
+     * block.bdea.cc). The input is normalized first; malformed input is
+     * answered with {@link Verdict#FAIL_INPUT_DOMAIN} without a query.
+     * <p>
+     * If the cache has a grace period, an expired verdict still within it is
+     * returned at once while a single background lookup refreshes it, and it
+     * is also returned when the refresh fails.
+     *
+     * @param domain Accepts a domain, email address or URL.
+     * @return Returns the verdict for the domain.
+     * @throws IOException If BDEA could not be reached.
+     */
+    public Verdict checkDomain(String domain) throws IOException {
+        String key = normalize(domain);
+        if (key == null) {
+            return Verdict.FAIL_INPUT_DOMAIN;
+        }
+        Verdict cached = lookupLocal(key);
+        if (cached != null) {
+            return cached;
+        }
+        Verdict stale = serveStale(key);
+        if (stale != null) {
+            return stale;
+        }
+        CompletableFuture<Verdict> future = new CompletableFuture<>();
+        CompletableFuture<Verdict> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+        return lookup(key, future);
+    }
+
+    /**
+     * Asynchronous version of {@link #checkDomain(String)}. Cache hits
+     * complete immediately; everything else runs on the client's executor,
+     * unless the same domain is already being looked up, in which case the
+     * result of that lookup is shared.
+     *
+     * @param domain Accepts a domain, email address or URL.
+     * @return Returns a future completed with the verdict, or completed
+     * exceptionally with an {@link IOException} if BDEA could not be reached.
+     */
+    public CompletableFuture<Verdict> checkDomainAsync(String domain) {
+        String key = normalize(domain);
+        if (key == null) {
+            return CompletableFuture.completedFuture(Verdict.FAIL_INPUT_DOMAIN);
+        }
+        Verdict cached = lookupLocal(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        Verdict stale = serveStale(key);
+        if (stale != null) {
+            return CompletableFuture.completedFuture(stale);
+        }
+        return lookupAsync(key);
+    }
+
+    /**
+     * Queries BDEA's EasyAPI for the supplied domain even if the local rules,
+     * filter, cache or store could answer it, e.g. to re-screen domains
+     * checked before. The fresh verdict replaces the cached and stored ones.
+     * Providers adapting the local rules or cache
+     * ({@link VerdictProvider#of(LocalRules)},
+     * {@link VerdictProvider#of(VerdictCache)}) are skipped. Unlike
+     * {@link #checkDomain(String)}, a refused lookup is never answered with
+     * the circuit-open verdict.
+     *
+     * @param domain Accepts a domain, email address or URL.
+     * @return Returns the verdict BDEA returned for the domain.
+     * @throws IOException If BDEA could not be reached or the circuit
+     * breaker refused the lookup.
+     */
+    public Verdict recheckDomain(String domain) throws IOException {
+        String key = normalize(domain);
+        if (key == null) {
+            return Verdict.FAIL_INPUT_DOMAIN;
+        }
+        return fetchAndRemember(key, true);
+    }
+
+    /**
+     * Asynchronous version of {@link #recheckDomain(String)}, running on the
+     * client's executor. Rechecks are not shared with other lookups of the
+     * same domain.
+     *
+     * @param domain Accepts a domain, email address or URL.
+     * @return Returns a future completed with the verdict, or completed
+     * exceptionally with an {@link IOException} if BDEA could not be reached.
+     */
+    public CompletableFuture<Verdict> recheckDomainAsync(String domain) {
+        final String key = normalize(domain);
+        if (key == null) {
+            return CompletableFuture.completedFuture(Verdict.FAIL_INPUT_DOMAIN);
+        }
+        final CompletableFuture<Verdict> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(fetchAndRemember(key, true));
+                } catch (IOException | RuntimeException ex) {
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    /**
+     * Answers a domain from the local rules, filter and cache only.
+     *
+     * @param domain Accepts a domain, email address or URL.
+     * @return Returns the verdict ({@link Verdict#FAIL_INPUT_DOMAIN} for
+     * malformed input), or null if answering it needs the store or BDEA.
+     */
+    public Verdict checkLocal(String domain) {
+        String key = normalize(domain);
+        return key != null ? lookupLocal(key) : Verdict.FAIL_INPUT_DOMAIN;
+    }
+
+    /**
+     * Applies the client's {@link DomainNormalizer}, counting rejected input.
+     *
+     * @param domain Accepts a domain, email address or URL.
+     * @return Returns the canonical domain used for lookups and cache keys,
+     * or null if the input is malformed.
+     */
+    public String normalize(String domain) {
+        String key = normalizer.normalize(domain);
+        if (key == null) {
+            rejected.incrementAndGet();
+        }
+        return key;
+    }
+
+    /**
+     * Stale-while-revalidate: answers a fresh cache miss with an expired
+     * verdict that is still within the cache's grace period, and starts a
+     * background lookup to refresh it unless one is already in flight.
+     *
+     * @return Returns the expired verdict, or null if there is none.
+     */
+    Verdict serveStale(String key) {
+        Verdict stale = cache != null ? cache.getStale(key) : null;
+        if (stale != null && !inFlight.containsKey(key)) {
+            lookupAsync(key);
+        }
+        return stale;
+    }
+
+    /**
+     * Looks up a normalized domain that missed the local tiers on the
+     * executor, joining an in-flight lookup of the same domain if there is
+     * one.
+     */
+    CompletableFuture<Verdict> lookupAsync(final String key) {
+        final CompletableFuture<Verdict> future = new CompletableFuture<>();
+        CompletableFuture<Verdict> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing.thenApply(verdict -> verdict);
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    lookup(key, future);
+                } catch (IOException | RuntimeException ex) {
+                    //Already delivered through the future.
+                }
+            });
+        } catch (RuntimeException ex) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(ex);
+        }
+        return future.thenApply(verdict -> verdict);
+    }
+
+    /**
+     * Runs the lookup that other callers of the same domain are waiting on,
+     * then publishes its result through the in-flight future. The future is
+     * unregistered first, so it is never seen as in flight once complete.
+     */
+    private Verdict lookup(String key, CompletableFuture<Verdict> future) throws IOException {
+        Verdict verdict;
+        try {
+            verdict = lookup(key);
+        } catch (IOException | RuntimeException ex) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(ex);
+            throw ex;
+        }
+        inFlight.remove(key, future);
+        future.complete(verdict);
+        return verdict;
+    }
+
+    /**
+     * Waits for a lookup started by another caller.
+     */
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a shared lookup");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Answers from the local rules or the cache, without spending credits.
+     */
+    private Verdict lookupLocal(String key) {
+        if (rules != null) {
+            Verdict verdict = rules.match(key);
+            if (verdict != null) {
+                return verdict;
+            }
+        }
+        return cache != null ? cache.get(key) : null;
+    }
+
+    /**
+     * Answers a cache miss from the store or BDEA, and remembers the answer.
+     * When BDEA fails, the last known verdict in the cache's grace period
+     * takes precedence over the circuit-open verdict or the failure.
+     */
+    private Verdict lookup(String key) throws IOException {
+        //Every cache miss reads the store, so stored ALLOW verdicts stay off
+        //the network too. The filter only tracks the BLOCK side: a stored
+        //BLOCK it has not seen (e.g. it was loaded from an older file) is
+        //added to it. A filter never answers on its own.
+        Verdict verdict = lookupStore(key);
+        if (verdict == Verdict.BLOCK) {
+            BloomFilter filter = blockFilter;
+            if (filter != null && !filter.mightContain(key)) {
+                rememberBlocked(key);
+            }
+        }
+        if (verdict != null) {
+            if (cache != null) {
+                cache.put(key, verdict);
+            }
+            return verdict;
+        }
+        try {
+            verdict = fetchAndRemember(key, false);
+        } catch (IOException ex) {
+            //Fallback answers are not remembered anywhere.
+            Verdict stale = cache != null ? cache.getStale(key) : null;
+            if (stale != null) {
+                return stale;
+            }
+            if (ex instanceof CircuitOpenException && circuitOpenVerdict != null) {
+                return circuitOpenVerdict;
+            }
+            throw ex;
+        }
+        if (RetryPolicy.isRetryable(verdict) && cache != null) {
+            Verdict stale = cache.getStale(key);
+            if (stale != null) {
+                return stale;
+            }
+        }
+        return verdict;
+    }
+
+    /**
+     * Asks the provider and remembers an answer from BDEA in the cache,
+     * filter and store. Answers from other providers are returned as they
+     * are, and a provider without an answer is reported as
+     * {@link Verdict#UNKNOWN}; neither is remembered anywhere.
+     *
+     * @param recheck Accepts true to skip the local layer adapters.
+     */
+    private Verdict fetchAndRemember(String key, boolean recheck) throws IOException {
+        Answer answer = fetchWithRetry(key, recheck);
+        if (answer == null) {
+            return Verdict.UNKNOWN;
+        }
+        Verdict verdict = answer.verdict;
+        if (!answer.authoritative) {
+            return verdict;
+        }
+        if (cache != null) {
+            cache.put(key, verdict);
+        }
+        if (store != null && !verdict.isFailure()) {
+            try {
+                store.put(key, verdict);
+            } catch (IOException ex) {
+                LOG.log(Level.WARNING, "Unable to persist verdict for " + key, ex);
+            }
+        }
+        if (verdict == Verdict.BLOCK) {
+            rememberBlocked(key);
+        }
+        return verdict;
+    }
+
+    /**
+     * Adds a blocked domain to the filter. A full filter is not grown any
+     * further, which would keep raising its false positive rate; it is
+     * replaced by one rebuilt from the store in the background instead.
+     */
+    private void rememberBlocked(String key) {
+        final BloomFilter filter = blockFilter;
+        if (filter == null) {
+            return;
+        }
+        if (!filter.isFull()) {
+            filter.put(key);
+            return;
+        }
+        if (store == null) {
+            return;
+        }
+        //The rebuild may already have read past this domain in the store, so
+        //it is queued for the rebuilt filter, or added to it if that has
+        //already been swapped in.
+        blockedDuringRebuild.add(key);
+        BloomFilter current = blockFilter;
+        if (current != filter) {
+            current.put(key);
+            return;
+        }
+        if (!rebuildingFilter.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    BloomFilter rebuilt = BloomFilter.fromStore(store, filter.getFalsePositiveRate());
+                    blockFilter = rebuilt;
+                    for (String blocked; (blocked = blockedDuringRebuild.poll()) != null;) {
+                        rebuilt.put(blocked);
+                    }
+                    LOG.log(Level.FINE, "Rebuilt the block filter with {0} domains", rebuilt.getApproximateCount());
+                } catch (IOException ex) {
+                    blockedDuringRebuild.clear();
+                    LOG.log(Level.WARNING, "Unable to rebuild the block filter", ex);
+                } finally {
+                    rebuildingFilter.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            blockedDuringRebuild.clear();
+            rebuildingFilter.set(false);
+        }
+    }
+
+    /**
+     * Asks the provider, retrying transient failures of BDEA as allowed by
+     * the retry policy. The outcome of every attempt that reached BDEA is
+     * reported to the circuit breaker. Answers from other providers, and no
+     * answer at all, say nothing about BDEA: they are returned at once and
+     * not reported.
+     *
+     * @return Returns the answer, or null if the provider has no answer.
+     * @throws CircuitOpenException If the breaker refused an attempt.
+     */
+    private Answer fetchWithRetry(String key, boolean recheck) throws IOException {
+        for (int attempt = 1;; attempt++) {
+            Answer answer = null;
+            IOException failure = null;
+            try {
+                answer = fetch(key, recheck);
+            } catch (CircuitOpenException | RateLimitTimeoutException ex) {
+                //No request was made, so BDEA's health is unknown.
+                throw ex;
+            } catch (IOException ex) {
+                failure = ex;
+            }
+            if (failure == null && (answer == null || !answer.authoritative)) {
+                return answer;
+            }
+            Verdict verdict = answer != null ? answer.verdict : null;
+            boolean failed = failure != null || RetryPolicy.isRetryable(verdict);
+            if (circuitBreaker != null) {
+                if (failed) {
+                    circuitBreaker.onFailure();
+                } else {
+                    circuitBreaker.onSuccess();
+                }
+            }
+            if (!failed || !retryPolicy.canRetry(attempt) || (failure != null && !RetryPolicy.isRetryable(failure))) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return answer;
+            }
+            retries.incrementAndGet();
+            try {
+                TimeUnit.MILLISECONDS.sleep(retryPolicy.backoff(attempt));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while backing off");
+            }
+        }
+    }
+
+    /**
+     * Makes one attempt. With hedging enabled the attempt runs on the hedge
+     * pool, and if it has not answered within the hedge delay a second,
+     * identical attempt is started; the first usable answer wins. A failed
+     * answer is only returned once both attempts have failed.
+     */
+    private Answer fetch(final String key, final boolean recheck) throws IOException {
+        if (hedgeExecutor == null) {
+            return ask(provider, key, recheck);
+        }
+        final CompletableFuture<Answer> winner = new CompletableFuture<>();
+        final AtomicInteger pending = new AtomicInteger(1);
+        try {
+            hedgeExecutor.execute(() -> race(key, recheck, winner, pending));
+        } catch (RejectedExecutionException ex) {
+            return ask(provider, key, recheck);
+        }
+        try {
+            return winner.get(hedgeDelay(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            if (hasHedgeToken()) {
+                pending.incrementAndGet();
+                try {
+                    hedgeExecutor.execute(() -> race(key, recheck, winner, pending));
+                    hedged.incrementAndGet();
+                } catch (RejectedExecutionException rejected) {
+                    pending.decrementAndGet();
+                }
+            }
+            return await(winner);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a lookup");
+        } catch (ExecutionException ex) {
+            return await(winner);
+        }
+    }
+
+    /**
+     * Runs one of the racing attempts of a hedged lookup.
+     */
+    private void race(String key, boolean recheck, CompletableFuture<Answer> winner, AtomicInteger pending) {
+        try {
+            Answer answer = ask(provider, key, recheck);
+            if (answer == null || !answer.authoritative || !RetryPolicy.isRetryable(answer.verdict)
+                    || pending.decrementAndGet() == 0) {
+                winner.complete(answer);
+            }
+        } catch (IOException | RuntimeException ex) {
+            if (pending.decrementAndGet() == 0) {
+                winner.completeExceptionally(ex);
+            }
+        }
+    }
+
+    /**
+     * The hedge delay is the configured percentile of recent EasyAPI
+     * latencies, but never less than the configured minimum.
+     */
+    private long hedgeDelay() {
+        LatencyHistogram latency = metrics.getEasyApiLatency();
+        if (latency.getCount() < HEDGE_MIN_SAMPLES) {
+            return hedgeMinDelay;
+        }
+        return Math.max(hedgeMinDelay, (long) (latency.getPercentileMillis(hedgePercentile) * TimeUnit.MILLISECONDS.toNanos(1)));
+    }
+
+    /**
+     * A hedge costs a credit like any other EasyAPI request, so it is only
+     * started while a rate limiter token is available right now; otherwise
+     * the lookup just keeps waiting. The token itself is taken by the
+     * {@link EasyApiProvider} making the request.
+     */
+    private boolean hasHedgeToken() {
+        return rateLimiter == null || rateLimiter.getAvailableTokens() >= 1;
+    }
+
+    /**
+     * Asks a provider, walking a {@link CompositeVerdictProvider} member by
+     * member so the client knows whether the answer came from BDEA. An
+     * authoritative provider is only asked while the circuit breaker allows
+     * it, so cheaper providers ahead of it keep answering while it is open.
+     *
+     * @param recheck Accepts true to skip the local layer adapters.
+     * @return Returns the answer, or null if no provider has one.
+     * @throws CircuitOpenException If the breaker refused a request to BDEA.
+     */
+    private Answer ask(VerdictProvider provider, String key, boolean recheck) throws IOException {
+        if (provider instanceof CompositeVerdictProvider) {
+            for (VerdictProvider member : ((CompositeVerdictProvider) provider).members()) {
+                Answer answer = ask(member, key, recheck);
+                if (answer != null) {
+                    return answer;
+                }
+            }
+            return null;
+        }
+        if (recheck && provider instanceof LocalVerdictProvider) {
+            return null;
+        }
+        boolean authoritative = provider.isAuthoritative();
+        if (authoritative && circuitBreaker != null && !circuitBreaker.allowRequest()) {
+            throw new CircuitOpenException(key);
+        }
+        Verdict verdict = provider.getVerdict(key);
+        return verdict != null ? Answer.of(verdict, authoritative) : null;
+    }
+
+    /**
+     * @return Returns the most EasyAPI requests one lookup can make: one per
+     * attempt the retry policy allows, twice that with hedging.
+     */
+    int getMaxRequestsPerLookup() {
+        return retryPolicy.getMaxAttempts() * (hedgeExecutor != null ? 2 : 1);
+    }
+
+    /**
+     * Lets EasyApiProvider instances among the client's providers account
+     * their requests to this client.
+     */
+    private void bind(VerdictProvider provider) {
+        if (provider instanceof EasyApiProvider) {
+            ((EasyApiProvider) provider).bind(this);
+        } else if (provider instanceof CompositeVerdictProvider) {
+            for (VerdictProvider member : ((CompositeVerdictProvider) provider).members()) {
+                bind(member);
+            }
+        }
+    }
+
+    /**
+     * Makes a request, timing it for the listeners.
+     *
+     * @param via Accepts the transport to make the request with.
+     */
+    void request(MetricsListener.Endpoint endpoint, HttpTransport via, String url, ResponseBuffer response) throws IOException {
+        long start = System.nanoTime();
+        Throwable failure = null;
+        requestsInFlight.incrementAndGet();
+        try {
+            via.get(url, response);
+        } catch (IOException | RuntimeException ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            requestsInFlight.decrementAndGet();
+            reportRequest(endpoint, System.nanoTime() - start, failure);
+        }
+    }
+
+    private void reportRequest(MetricsListener.Endpoint endpoint, long nanos, Throwable failure) {
+        for (MetricsListener listener : listeners) {
+            try {
+                listener.onRequest(endpoint, nanos, failure);
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "Metrics listener failed", ex);
+            }
+        }
+    }
+
+    /**
+     * Reports a verdict BDEA answered with to the listeners, and stops the
+     * rate limiter if it says the credits are used up.
+     */
+    void reportVerdict(String key, Verdict verdict) {
+        if (verdict == Verdict.FAIL_KEY_LOW_CREDITS && rateLimiter != null) {
+            rateLimiter.markExhausted();
+        }
+        for (MetricsListener listener : listeners) {
+            try {
+                listener.onVerdict(key, verdict);
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "Metrics listener failed", ex);
+            }
+        }
+    }
+
+    /**
+     * Waits for a rate limiter token, if the client has a rate limiter.
+     *
+     * @return Returns false if credits are exhausted, in which case the lookup
+     * is answered locally with fail_key_low_credits instead of spending a
+     * request.
+     * @throws RateLimitTimeoutException If no token became available in time.
+     */
+    boolean acquirePermit() throws IOException {
+        if (rateLimiter == null) {
+            return true;
+        }
+        try {
+            if (rateLimiter.acquire(rateLimitWait)) {
+                return true;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the rate limiter");
+        }
+        if (rateLimiter.getMode() == CreditRateLimiter.Mode.EXHAUSTED) {
+            return false;
+        }
+        throw new RateLimitTimeoutException(rateLimitWait);
+    }
+
+    /**
+     * A store that cannot be read is treated as a miss, so a damaged store
+     * never blocks lookups.
+     */
+    private Verdict lookupStore(String key) {
+        if (store == null) {
+            return null;
+        }
+        try {
+            return store.get(key);
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Unable to read verdict store for " + key, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Queries BDEA's Status API for the status of the API key. The status is
+     * also applied to the rate limiter, if any, and published through the
+     * {@link #getStatusPoller() status poller}.
+     *
+     * @return Returns the status of the API key.
+     * @throws IOException If BDEA could not be reached or the response could
+     * not be parsed.
+     */
+    public KeyStatus checkStatus() throws IOException {
+        ResponseBuffer response = RESPONSE_BUFFER.get();
+        request(MetricsListener.Endpoint.STATUS_API, transport, statusUrl, response);
+        KeyStatus status;
+        try {
+            status = StatusParser.parse(response);
+        } catch (IOException | RuntimeException ex) {
+            throw new IOException("Unable to parse Status API response: " + response, ex);
+        }
+        for (MetricsListener listener : listeners) {
+            try {
+                listener.onKeyStatus(status);
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "Metrics listener failed", ex);
+            }
+        }
+        if (rateLimiter != null) {
+            rateLimiter.update(status);
+        }
+        statusPoller.update(status);
+        return status;
+    }
+
+    /**
+     * Asynchronous version of {@link #checkStatus()}.
+     *
+     * @return Returns a future completed with the status of the API key, or
+     * completed exceptionally with an {@link IOException}.
+     */
+    public CompletableFuture<KeyStatus> checkStatusAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return checkStatus();
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        }, executor);
+    }
+
+    /**
+     * @return Returns the number of checks that shared another caller's
+     * in-flight lookup instead of making their own.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return Returns the number of distinct domains currently being looked
+     * up past the cache. Each may be shared by several checks, and may be
+     * waiting for the rate limiter or a retry rather than for BDEA.
+     */
+    public int getInFlightLookupCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return Returns the number of requests to BDEA's EasyAPI and Status API
+     * currently in progress, hedged requests included.
+     */
+    public int getInFlightRequestCount() {
+        return requestsInFlight.get();
+    }
+
+    /**
+     * @return Returns the number of inputs rejected as malformed without a
+     * lookup.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return Returns the number of EasyAPI attempts that were retries.
+     */
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    /**
+     * @return Returns the number of hedge requests started because the first
+     * request was slow.
+     */
+    public long getHedgedCount() {
+        return hedged.get();
+    }
+
+    /**
+     * @return Returns the poller holding the latest key status.
+     */
+    public KeyStatusPoller getStatusPoller() {
+        return statusPoller;
+    }
+
+    /**
+     * @return Returns the circuit breaker, or null if none is used.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * @return Returns the client's built-in metrics.
+     */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return Returns the rate limiter, whose mode, rate and remaining
+     * credits describe the current lookup budget, or null if lookups are not
+     * rate limited.
+     */
+    public CreditRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * @return Returns the verdict cache, or null if caching is disabled.
+     */
+    public VerdictCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return Returns the local rules, or null if none are used.
+     */
+    public LocalRules getRules() {
+        return rules;
+    }
+
+    /**
+     * @return Returns the filter of blocked domains, or null if none is used.
+     * This is the filter passed to the builder until it fills up and is
+     * replaced by a rebuilt one.
+     */
+    public BloomFilter getBlockFilter() {
+        return blockFilter;
+    }
+
+    /**
+     * @return Returns the persistent verdict store, or null if none is used.
+     */
+    public VerdictStore getStore() {
+        return store;
+    }
+
+    /**
+     * @return Returns the normalizer applied to every domain.
+     */
+    public DomainNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    /**
+     * @return Returns the last 4 letters/numbers of the API key.
+     */
+    public String getKeyEnding() {
+        return apiKey.substring(Math.max(0, apiKey.length() - 4));
+    }
+
+    /**
+     * Stops the status refresh, unregisters the metrics from JMX, and closes
+     * the transport and shuts down the executor if they were created by this
+     * client. A transport or executor passed to the {@link Builder} is
+     * left open for its owner to close.
+     *
+     * @throws IOException If the transport could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        statusPoller.close();
+        try {
+            metrics.unregister();
+        } catch (JMException ex) {
+            LOG.log(Level.WARNING, "Unable to unregister client metrics", ex);
+        }
+        if (ownsExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdown();
+        }
+        if (ownsTransport) {
+            transport.close();
+        }
+    }
+
+    /**
+     * A provider's verdict and whether it came from BDEA. There is one shared
+     * instance per verdict and source, so answering allocates nothing.
+     */
+    private static final class Answer {
+
+        private static final Answer[] FROM_BDEA = answers(true);
+        private static final Answer[] FROM_ELSEWHERE = answers(false);
+
+        private final Verdict verdict;
+        private final boolean authoritative;
+
+        private Answer(Verdict verdict, boolean authoritative) {
+            this.verdict = verdict;
+            this.authoritative = authoritative;
+        }
+
+        private static Answer of(Verdict verdict, boolean authoritative) {
+            return (authoritative ? FROM_BDEA : FROM_ELSEWHERE)[verdict.ordinal()];
+        }
+
+        private static Answer[] answers(boolean authoritative) {
+            Verdict[] verdicts = Verdict.values();
+            Answer[] answers = new Answer[verdicts.length];
+            for (Verdict verdict : verdicts) {
+                answers[verdict.ordinal()] = new Answer(verdict, authoritative);
+            }
+            return answers;
+        }
+    }
+
+    /**
+     * Builder for {@link BlockDeaClient}.
+     */
+    public static final class Builder {
+
+        private final String apiKey;
+        private String easyApiUrl = EASY_API_URL;
+        private VerdictProvider provider;
+        private String statusApiUrl = STATUS_API_URL;
+        private HttpTransport transport;
+        private int connectTimeout = UrlConnectionTransport.DEFAULT_CONNECT_TIMEOUT;
+        private int readTimeout = UrlConnectionTransport.DEFAULT_READ_TIMEOUT;
+        private int maxConnections = UrlConnectionTransport.DEFAULT_MAX_CONNECTIONS;
+        private VerdictCache cache;
+        private boolean defaultCache = true;
+        private VerdictStore store;
+        private LocalRules rules;
+        private BloomFilter blockFilter;
+        private Executor executor;
+        private CreditRateLimiter rateLimiter;
+        private long rateLimitWait = DEFAULT_RATE_LIMIT_WAIT;
+        private long statusRefreshInterval = DEFAULT_STATUS_REFRESH_INTERVAL;
+        private boolean pollStatus;
+        private final List<KeyStatusListener> statusListeners = new ArrayList<>();
+        private final List<MetricsListener> listeners = new ArrayList<>();
+        private String jmxName;
+        private RetryPolicy retryPolicy = RetryPolicy.NONE;
+        private DomainNormalizer normalizer = DomainNormalizer.DEFAULT;
+        private CircuitBreaker circuitBreaker;
+        private Verdict circuitOpenVerdict;
+        private double hedgePercentile;
+        private long hedgeMinDelay;
+
+        private Builder(String apiKey) {
+            this.apiKey = apiKey;
+        }
+
+        /**
+         * Points the client at another EasyAPI, e.g. a local stub server.
+         *
+         * @param url Accepts the base URL; the key, a slash and the domain are
+         * appended to it.
+         * @return Returns this builder.
+         */
+        public Builder easyApiUrl(String url) {
+            this.easyApiUrl = url;
+            return this;
+        }
+
+        /**
+         * Replaces the EasyAPI as the source of verdicts the local rules,
+         * filter, cache and store cannot answer, e.g. with a
+         * {@link FileVerdictProvider} to load-test offline or a
+         * {@link CompositeVerdictProvider} that asks cheaper sources before
+         * an {@link EasyApiProvider}. Only answers from an
+         * {@link VerdictProvider#isAuthoritative() authoritative} provider
+         * (the EasyApiProvider) are treated as BDEA's: they are cached,
+         * stored, added to the filter, reported to the circuit breaker and
+         * retried when transient, and the breaker only guards that provider.
+         * Answers from any other provider are returned as they are, so an
+         * offline load test never fills the cache or store. The rate limiter
+         * and the EasyAPI metrics only see the requests of the
+         * EasyApiProvider instances among the providers, which are bound to
+         * this client and cannot be shared with another one. A null answer
+         * is final: it is returned as {@link Verdict#UNKNOWN}. An exception
+         * from any provider counts as a failure of BDEA.
+         *
+         * @param provider Accepts the provider, or null for the EasyAPI.
+         * @return Returns this builder.
+         */
+        public Builder provider(VerdictProvider provider) {
+            this.provider = provider;
+            return this;
+        }
+
+        /**
+         * Points the client at another Status API, e.g. a local stub server.
+         *
+         * @param url Accepts the base URL; the key is appended to it.
+         * @return Returns this builder.
+         */
+        public Builder statusApiUrl(String url) {
+            this.statusApiUrl = url;
+            return this;
+        }
+
+        /**
+         * Shares an existing transport (and its connection pool) with this
+         * client. When set, the timeout and pool settings below are ignored.
+         *
+         * @param transport Accepts the transport to use.
+         * @return Returns this builder.
+         */
+        public Builder transport(HttpTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * @param millis Accepts the connect timeout in milliseconds.
+         * @return Returns this builder.
+         */
+        public Builder connectTimeout(int millis) {
+            this.connectTimeout = millis;
+            return this;
+        }
+
+        /**
+         * @param millis Accepts the read timeout in milliseconds.
+         * @return Returns this builder.
+         */
+        public Builder readTimeout(int millis) {
+            this.readTimeout = millis;
+            return this;
+        }
+
+        /**
+         * @param maxConnections Accepts the maximum number of connections in
+         * use at once.
+         * @return Returns this builder.
+         */
+        public Builder maxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * Sets the verdict cache, which may be shared with other clients. By
+         * default every client gets its own {@link VerdictCache} with default
+         * settings.
+         *
+         * @param cache Accepts the cache to use, or null to disable caching.
+         * @return Returns this builder.
+         */
+        public Builder cache(VerdictCache cache) {
+            this.cache = cache;
+            this.defaultCache = false;
+            return this;
+        }
+
+        /**
+         * Gives the client its own {@link VerdictCache} with default size and
+         * time to live values that keeps expired verdicts for a grace period:
+         * they are served while a background lookup refreshes them, and while
+         * BDEA fails. Use {@link #cache(VerdictCache)} with
+         * {@link VerdictCache#VerdictCache(int, long, long, long)} for other
+         * settings.
+         *
+         * @param gracePeriod Accepts how long an expired verdict may be
+         * served, in milliseconds.
+         * @return Returns this builder.
+         */
+        public Builder staleWhileRevalidate(long gracePeriod) {
+            return cache(new VerdictCache(VerdictCache.DEFAULT_MAX_ENTRIES, VerdictCache.DEFAULT_ALLOW_TTL, VerdictCache.DEFAULT_BLOCK_TTL, gracePeriod));
+        }
+
+        /**
+         * Consults a persistent store after the cache and before BDEA. The
+         * store is not closed by the client.
+         *
+         * @param store Accepts the store to use, or null for none.
+         * @return Returns this builder.
+         */
+        public Builder store(VerdictStore store) {
+            this.store = store;
+            return this;
+        }
+
+        /**
+         * Consults local allow/block rules before anything else. Rule matches
+         * are not cached or stored, so a reload takes effect immediately. The
+         * rules are not closed by the client. Build them with the same
+         * {@link DomainNormalizer} as {@link #normalizer(DomainNormalizer)},
+         * e.g. {@link LocalRules#load(java.nio.file.Path, java.nio.file.Path, DomainNormalizer)}, so their
+         * entries match the normalized domains.
+         *
+         * @param rules Accepts the rules to use, or null for none.
+         * @return Returns this builder.
+         */
+        public Builder rules(LocalRules rules) {
+            this.rules = rules;
+            return this;
+        }
+
+        /**
+         * Keeps a filter of blocked domains, e.g. one built with
+         * {@link BloomFilter#fromStore(VerdictStore, double)}, up to date
+         * and available from {@link #getBlockFilter()} as a fast pre-check
+         * of the BLOCK side. It never decides a lookup: the store is still
+         * read for every domain the cache cannot answer, so stored ALLOW
+         * verdicts are answered without BDEA, and a false positive never
+         * blocks a domain. New BLOCK verdicts, and stored ones the filter has
+         * not seen, are added to the filter until it reaches its capacity,
+         * after which it is rebuilt from the store. Without a store the
+         * filter is never rebuilt.
+         *
+         * @param blockFilter Accepts the filter to use, or null for none.
+         * @return Returns this builder.
+         */
+        public Builder blockFilter(BloomFilter blockFilter) {
+            this.blockFilter = blockFilter;
+            return this;
+        }
+
+        /**
+         * Sets the executor used by the asynchronous methods, for example
+         * {@link LookupExecutors#newVirtualThreadExecutor()}. By default the
+         * client creates {@link LookupExecutors#newDefaultExecutor(int)} sized
+         * to its connection pool.
+         *
+         * @param executor Accepts the executor to run lookups on.
+         * @return Returns this builder.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Paces lookups that reach BDEA. While a limiter is set the client
+         * refreshes the key status in the background so the limiter follows
+         * the remaining credits. When credits are exhausted, lookups that miss
+         * the cache and store are answered with
+         * {@link Verdict#FAIL_KEY_LOW_CREDITS} without a request.
+         *
+         * @param rateLimiter Accepts the limiter, or null for none.
+         * @return Returns this builder.
+         */
+        public Builder rateLimiter(CreditRateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * @param millis Accepts the longest time a lookup waits for a rate
+         * limiter token before failing with an IOException, default
+         * {@link #DEFAULT_RATE_LIMIT_WAIT}.
+         * @return Returns this builder.
+         */
+        public Builder rateLimitWait(long millis) {
+            if (millis < 0) {
+                throw new IllegalArgumentException("Rate limit wait must not be negative");
+            }
+            this.rateLimitWait = millis;
+            return this;
+        }
+
+        /**
+         * The key status is refreshed in the background while a rate limiter
+         * or a {@link KeyStatusListener} is set, or after {@link #pollStatus()}.
+         *
+         * @param millis Accepts how often the key status is refreshed, or 0 to
+         * only use statuses from {@link BlockDeaClient#checkStatus()} calls.
+         * @return Returns this builder.
+         */
+        public Builder statusRefreshInterval(long millis) {
+            this.statusRefreshInterval = millis;
+            return this;
+        }
+
+        /**
+         * Refreshes the key status in the background even without a rate
+         * limiter or key status listener, so
+         * {@link KeyStatusPoller#getStatus()} stays current.
+         *
+         * @return Returns this builder.
+         */
+        public Builder pollStatus() {
+            this.pollStatus = true;
+            return this;
+        }
+
+        /**
+         * Adds a listener told about key status transitions, e.g. credits
+         * going from good to low. Adding a listener turns on the background
+         * status refresh.
+         *
+         * @param listener Accepts the listener.
+         * @return Returns this builder.
+         */
+        public Builder keyStatusListener(KeyStatusListener listener) {
+            if (listener == null) {
+                throw new NullPointerException("listener");
+            }
+            this.statusListeners.add(listener);
+            return this;
+        }
+
+        /**
+         * Sets how input is turned into the domain that is looked up, e.g. a
+         * {@link DomainNormalizer} with a {@link PublicSuffixList} to look up
+         * registrable domains only. The default keeps host names whole.
+         *
+         * @param normalizer Accepts the normalizer to use.
+         * @return Returns this builder.
+         */
+        public Builder normalizer(DomainNormalizer normalizer) {
+            if (normalizer == null) {
+                throw new NullPointerException("normalizer");
+            }
+            this.normalizer = normalizer;
+            return this;
+        }
+
+        /**
+         * Retries EasyAPI lookups that failed with an I/O error, fail_server or
+         * an unrecognized response. Each retry waits for a rate limiter token
+         * and costs a credit. By default lookups are not retried.
+         *
+         * @param retryPolicy Accepts the policy to use.
+         * @return Returns this builder.
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            if (retryPolicy == null) {
+                throw new NullPointerException("retryPolicy");
+            }
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Sends a second, identical EasyAPI request when the first has not
+         * answered within the given percentile of recent EasyAPI latencies,
+         * and uses whichever answers first. This cuts tail latency at the cost
+         * of an extra credit for each hedged lookup; hedges are only sent when
+         * the rate limiter has a token available immediately.
+         *
+         * @param percentile Accepts the latency percentile after which to
+         * hedge, between 0 and 1 (exclusive), e.g. 0.95, or 0 to disable
+         * hedging.
+         * @param minDelay Accepts the shortest hedge delay in milliseconds,
+         * also used until enough latencies have been observed.
+         * @return Returns this builder.
+         */
+        public Builder hedging(double percentile, long minDelay) {
+            if (percentile < 0 || percentile >= 1 || minDelay < 0) {
+                throw new IllegalArgumentException("Percentile must be in [0, 1) and the delay must not be negative");
+            }
+            this.hedgePercentile = percentile;
+            this.hedgeMinDelay = minDelay;
+            return this;
+        }
+
+        /**
+         * Stops making EasyAPI requests while BDEA is failing. While the
+         * breaker is open, lookups are still answered from the local rules,
+         * filter, cache and store; anything else gets the circuit-open verdict
+         * or a {@link CircuitOpenException}.
+         *
+         * @param circuitBreaker Accepts the breaker, or null for none.
+         * @return Returns this builder.
+         */
+        public Builder circuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        /**
+         * Sets the answer for lookups refused by an open circuit breaker:
+         * {@link Verdict#ALLOW} to fail open, {@link Verdict#BLOCK} to fail
+         * closed, or null (the default) to throw {@link CircuitOpenException}.
+         * Fallback answers are never cached or stored.
+         *
+         * @param verdict Accepts ALLOW, BLOCK or null.
+         * @return Returns this builder.
+         */
+        public Builder circuitOpenVerdict(Verdict verdict) {
+            if (verdict != null && verdict.isFailure()) {
+                throw new IllegalArgumentException("Fallback must be ALLOW, BLOCK or null");
+            }
+            this.circuitOpenVerdict = verdict;
+            return this;
+        }
+
+        /**
+         * Adds a listener that receives request timings, verdicts and key
+         * statuses in addition to the client's own {@link ClientMetrics}. May
+         * be called more than once.
+         *
+         * @param listener Accepts the listener to add.
+         * @return Returns this builder.
+         */
+        public Builder metricsListener(MetricsListener listener) {
+            if (listener == null) {
+                throw new NullPointerException("listener");
+            }
+            this.listeners.add(listener);
+            return this;
+        }
+
+        /**
+         * Publishes the client's metrics over JMX as
+         * {@code sirjacob.BlockDEA:type=BlockDeaClient,name=<name>} until the
+         * client is closed. A registration failure is logged and does not
+         * prevent the client from being built.
+         *
+         * @param name Accepts a name unique among the clients in this JVM, or
+         * null to not register.
+         * @return Returns this builder.
+         */
+        public Builder jmxName(String name) {
+            this.jmxName = name;
+            return this;
+        }
+
+        /**
+         * @return Returns the configured client.
+         * @throws IllegalArgumentException If the key is empty or not
+         * alphanumeric, or a timeout or pool size is not positive.
+         */
+        public BlockDeaClient build() {
+            return new BlockDeaClient(this);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package sirjacob.BlockDEA;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of domains, used as a compact pre-check for domains BDEA has
+ * already answered with block. {@link #mightContain(String)} never returns
+ * false for a domain that was added, and returns true for a domain that was
+ * not added with roughly the false positive rate the filter was sized for, as
+ * long as no more than {@link #getCapacity()} domains are added. Domains
+ * cannot be removed; a filter that is full or out of date is replaced by one
+ * rebuilt with {@link #fromStore(VerdictStore, double)}.
+ * <p>
+ * Domains can be added concurrently with lookups. A filter can be written to
+ * disk and loaded at startup; {@link #main(String[])} rebuilds one from the
+ * BLOCK verdicts of a {@link VerdictStore}.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class BloomFilter {
+
+    /**
+     * Default false positive rate.
+     */
+    public static final double DEFAULT_FPP = 0.001;
+
+    private static final int MAGIC = 0x42444246; //"BDBF"
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+    private final long capacity;
+    private final AtomicInteger count = new AtomicInteger();
+
+    private BloomFilter(long numBits, int numHashes) {
+        if (numBits / 64 >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filter is too large");
+        }
+        this.bits = new AtomicLongArray((int) ((numBits + 63) / 64));
+        this.numBits = numBits;
+        this.numHashes = numHashes;
+        //Inverse of the sizing in create(), so it survives writeTo/readFrom.
+        this.capacity = Math.max(1, (long) (numBits * Math.log(2) / numHashes));
+    }
+
+    /**
+     * @param expectedInsertions Accepts the number of domains the filter is
+     * sized for.
+     * @param fpp Accepts the false positive rate wanted at that size, between
+     * 0 and 1 (exclusive).
+     * @return Returns an empty filter.
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Expected insertions must be positive and fpp must be in (0, 1)");
+        }
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int k = Math.max(1, (int) Math.round((double) m / expectedInsertions * Math.log(2)));
+        return new BloomFilter(Math.max(64, m), k);
+    }
+
+    /**
+     * Builds a filter holding every domain whose latest stored verdict is
+     * BLOCK, including expired ones. The filter is sized for twice the
+     * number of stored domains, leaving room for new verdicts.
+     *
+     * @param store Accepts the store to read.
+     * @param fpp Accepts the false positive rate wanted.
+     * @return Returns the filter.
+     * @throws IOException If the store could not be read.
+     */
+    public static BloomFilter fromStore(VerdictStore store, double fpp) throws IOException {
+        final BloomFilter filter = create(Math.max(1024, 2L * store.size()), fpp);
+        store.forEach((domain, verdict) -> {
+            if (verdict == Verdict.BLOCK) {
+                filter.put(domain);
+            }
+        });
+        return filter;
+    }
+
+    /**
+     * @param domain Accepts a normalized domain.
+     */
+    public void put(String domain) {
+        long hash = hash(domain);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        boolean changed = false;
+        for (int i = 1; i <= numHashes; i++) {
+            changed |= set(index(h1 + i * h2));
+        }
+        if (changed) {
+            count.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param domain Accepts a normalized domain.
+     * @return Returns false if the domain was definitely never added, true if
+     * it probably was.
+     */
+    public boolean mightContain(String domain) {
+        long hash = hash(domain);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = index(h1 + i * h2);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Returns the approximate number of domains added.
+     */
+    public int getApproximateCount() {
+        return count.get();
+    }
+
+    /**
+     * @return Returns the number of domains the filter is sized for.
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Returns true once {@link #getCapacity()} domains have been
+     * added; adding more raises the false positive rate above the rate the
+     * filter was sized for.
+     */
+    public boolean isFull() {
+        return count.get() >= capacity;
+    }
+
+    /**
+     * @return Returns the false positive rate the filter was sized for, i.e.
+     * the expected rate once it is full.
+     */
+    public double getFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-numHashes * (double) capacity / numBits), numHashes);
+    }
+
+    /**
+     * @return Returns the size of the filter in bits.
+     */
+    public long getBitSize() {
+        return numBits;
+    }
+
+    /**
+     * @param out Accepts the stream to write to; it is not closed.
+     * @throws IOException If the filter could not be written.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeLong(numBits);
+        data.writeInt(numHashes);
+        data.writeInt(count.get());
+        for (int i = 0; i < bits.length(); i++) {
+            data.writeLong(bits.get(i));
+        }
+        data.flush();
+    }
+
+    /**
+     * @param in Accepts a stream written by {@link #writeTo(OutputStream)}; it
+     * is not closed.
+     * @return Returns the filter.
+     * @throws IOException If the stream could not be read or is not a filter.
+     */
+    public static BloomFilter readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a Bloom filter");
+        }
+        long numBits = data.readLong();
+        int numHashes = data.readInt();
+        if (numBits <= 0 || numHashes <= 0) {
+            throw new IOException("Corrupt Bloom filter header");
+        }
+        BloomFilter filter = new BloomFilter(numBits, numHashes);
+        filter.count.set(data.readInt());
+        for (int i = 0; i < filter.bits.length(); i++) {
+            filter.bits.set(i, data.readLong());
+        }
+        return filter;
+    }
+
+    /**
+     * @param file Accepts the file to write.
+     * @throws IOException If the file could not be written.
+     */
+    public void save(Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            writeTo(out);
+        }
+    }
+
+    /**
+     * @param file Accepts a file written by {@link #save(Path)}.
+     * @return Returns the filter.
+     * @throws IOException If the file could not be read.
+     */
+    public static BloomFilter load(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            return readFrom(in);
+        }
+    }
+
+    /**
+     * Rebuilds a filter from the verdict history in a store.
+     * <p>
+     * Usage: {@code BloomFilter <store-directory> <filter-file> [fpp]}
+     *
+     * @param args the command line arguments
+     * @throws IOException If the store could not be read or the filter could
+     * not be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BloomFilter <store-directory> <filter-file> [fpp]");
+            System.exit(2);
+        }
+        double fpp = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_FPP;
+        try (VerdictStore store = new VerdictStore(Paths.get(args[0]))) {
+            BloomFilter filter = fromStore(store, fpp);
+            filter.save(Paths.get(args[1]));
+            System.err.println("Wrote " + filter.getApproximateCount() + " blocked domains (" + filter.getBitSize() / 8 + " bytes) to " + args[1]);
+        }
+    }
+
+    private boolean set(long bit) {
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        while (true) {
+            long current = bits.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (bits.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    private long index(int combined) {
+        return (combined & Integer.MAX_VALUE) % numBits;
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters of the domain, finished with the
+     * SplitMix64 mixer so both halves are usable as independent hashes.
+     */
+    private static long hash(String domain) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < domain.length(); i++) {
+            h ^= domain.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
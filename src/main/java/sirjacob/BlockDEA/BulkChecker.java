@@ -0,0 +1,485 @@
+package sirjacob.BlockDEA;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks a stream of domains or email addresses, one per line (or one column
+ * of a CSV file). Domains are extracted from addresses and deduplicated, at
+ * most {@code concurrency} lookups are in flight at once, and every result is
+ * written as soon as it arrives, so memory use depends on the number of
+ * distinct domains rather than the size of the input.
+ * <p>
+ * Output rows are {@code domain,ALLOW}, {@code domain,BLOCK} or
+ * {@code domain,FAILURE,reason}, in completion order. A value that is not a
+ * domain, email address or URL is written as is (quoted if needed) with
+ * {@code FAILURE,fail_input_domain}, once for every line holding it, so it
+ * can be told apart from a value missing from the output.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class BulkChecker {
+
+    /**
+     * Default number of lookups in flight at once.
+     */
+    public static final int DEFAULT_CONCURRENCY = 16;
+    /**
+     * Default time between progress reports in milliseconds.
+     */
+    public static final long DEFAULT_REPORT_INTERVAL = 5000;
+
+    private final BlockDeaClient client;
+    private final DomainNormalizer normalizer;
+    private final int concurrency;
+    private final int column;
+    private final long reportInterval;
+
+    /**
+     * @param client Accepts the client used for lookups.
+     * @param concurrency Accepts the maximum number of lookups in flight.
+     * @param column Accepts the zero based CSV column holding the address or
+     * domain; use 0 for plain line-delimited input.
+     * @param reportInterval Accepts the minimum time between progress reports
+     * in milliseconds.
+     */
+    public BulkChecker(BlockDeaClient client, int concurrency, int column, long reportInterval) {
+        if (concurrency <= 0 || column < 0 || reportInterval < 0) {
+            throw new IllegalArgumentException("Concurrency must be positive and column/interval must not be negative");
+        }
+        this.client = client;
+        this.normalizer = client.getNormalizer();
+        this.concurrency = concurrency;
+        this.column = column;
+        this.reportInterval = reportInterval;
+    }
+
+    /**
+     * Extracts the domain from a line of input.
+     *
+     * @param line Accepts a line of line-delimited or CSV input.
+     * @param column Accepts the zero based CSV column to read.
+     * @param normalizer Accepts the normalizer to apply, normally the one of
+     * the client doing the lookups.
+     * @return Returns the normalized domain, or null if the line holds none
+     * (blank lines, comments starting with #, missing columns, header fields
+     * and other values the normalizer rejects).
+     */
+    public static String extractDomain(String line, int column, DomainNormalizer normalizer) {
+        String field = inputField(line, column);
+        return field != null ? normalizer.normalize(field) : null;
+    }
+
+    /**
+     * @param line Accepts a line of line-delimited or CSV input.
+     * @param column Accepts the zero based CSV column to read.
+     * @return Returns the value to look up, or null for blank lines,
+     * comments starting with # and lines with fewer columns.
+     */
+    static String inputField(String line, int column) {
+        String field = csvField(line, column);
+        if (field == null || field.isEmpty() || field.charAt(0) == '#') {
+            return null;
+        }
+        return field;
+    }
+
+    /**
+     * Reads one field of a CSV line (RFC 4180): fields are separated by
+     * commas, and a field in double quotes may contain commas and doubled
+     * quotes. Fields that span several lines are not supported.
+     *
+     * @param line Accepts a line of CSV input.
+     * @param column Accepts the zero based column to read.
+     * @return Returns the trimmed, unquoted field, or null if the line has
+     * fewer columns.
+     */
+    static String csvField(String line, int column) {
+        int pos = 0;
+        for (int c = 0; c < column; c++) {
+            pos = skipField(line, pos);
+            if (pos >= line.length()) {
+                return null;
+            }
+            pos++; //The comma.
+        }
+        int start = pos;
+        while (start < line.length() && line.charAt(start) == ' ') {
+            start++;
+        }
+        if (start < line.length() && line.charAt(start) == '"') {
+            StringBuilder field = new StringBuilder();
+            for (int i = start + 1; i < line.length(); i++) {
+                char ch = line.charAt(i);
+                if (ch == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                field.append(ch);
+            }
+            return field.toString().trim();
+        }
+        int end = line.indexOf(',', pos);
+        return line.substring(pos, end < 0 ? line.length() : end).trim();
+    }
+
+    /**
+     * @return Returns the value as a CSV field, in double quotes if it holds
+     * a comma, double quote or line break.
+     */
+    static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * @return Returns the index of the comma ending the field that starts at
+     * pos, or the line length if it is the last field.
+     */
+    private static int skipField(String line, int pos) {
+        boolean quoted = false;
+        for (int i = pos; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (ch == '"') {
+                quoted = !quoted;
+            } else if (ch == ',' && !quoted) {
+                return i;
+            }
+        }
+        return line.length();
+    }
+
+    /**
+     * Returns the value following a command line option, or prints the usage
+     * and exits if the option is the last argument.
+     *
+     * @param args Accepts the command line arguments.
+     * @param i Accepts the index of the option.
+     * @param usage Accepts the usage message to print.
+     * @return Returns args[i + 1].
+     */
+    static String optionValue(String[] args, int i, String usage) {
+        if (i + 1 >= args.length) {
+            System.err.println("Missing value for " + args[i]);
+            System.err.println(usage);
+            System.exit(2);
+        }
+        return args[i + 1];
+    }
+
+    /**
+     * Reads every line of the input, checks each distinct domain once and
+     * writes the results. Returns once all lookups have finished.
+     *
+     * @param in Accepts the input, which is not closed.
+     * @param out Accepts where result rows are written; it is flushed but not
+     * closed.
+     * @param listener Accepts a listener for progress reports, or null.
+     * @return Returns the final progress.
+     * @throws IOException If the input could not be read or the output could
+     * not be written.
+     */
+    public Progress run(BufferedReader in, Writer out, ProgressListener listener) throws IOException {
+        final Run run = new Run(out, listener);
+        Set<String> seen = new HashSet<>();
+        Semaphore permits = new Semaphore(concurrency);
+        String line;
+        try {
+            while ((line = in.readLine()) != null) {
+                run.lines.incrementAndGet();
+                String field = inputField(line, column);
+                if (field == null) {
+                    continue;
+                }
+                final String domain = normalizer.normalize(field);
+                if (domain == null) {
+                    run.reject(field);
+                    run.rethrow();
+                    continue;
+                }
+                if (!seen.add(domain)) {
+                    continue;
+                }
+                run.submitted.incrementAndGet();
+                permits.acquire();
+                client.checkDomainAsync(domain).whenComplete((verdict, ex) -> {
+                    try {
+                        run.complete(domain, verdict, ex);
+                    } finally {
+                        permits.release();
+                    }
+                });
+                run.rethrow();
+            }
+            permits.acquire(concurrency);
+            permits.release(concurrency);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while checking domains", ex);
+        }
+        run.rethrow();
+        synchronized (out) {
+            out.flush();
+        }
+        Progress progress = run.snapshot();
+        if (listener != null) {
+            listener.progress(progress);
+        }
+        return progress;
+    }
+
+    /**
+     * Command line entry point.
+     * <p>
+     * Usage: {@code BulkChecker [--key KEY] [--concurrency N] [--column N]
+     * [input|-] [output|-]}. The key may also be supplied through the
+     * BDEA_API_KEY environment variable. Input and output default to stdin and
+     * stdout; progress is reported on stderr.
+     *
+     * @param args the command line arguments
+     * @throws IOException If the input or output could not be opened.
+     */
+    public static void main(String[] args) throws IOException {
+        String usage = "Usage: BulkChecker [--key KEY] [--concurrency N] [--column N] [input|-] [output|-]";
+        String key = System.getenv("BDEA_API_KEY");
+        int concurrency = DEFAULT_CONCURRENCY;
+        int column = 0;
+        String input = "-";
+        String output = "-";
+        int positional = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--key":
+                    key = optionValue(args, i++, usage);
+                    break;
+                case "--concurrency":
+                    concurrency = Integer.parseInt(optionValue(args, i++, usage));
+                    break;
+                case "--column":
+                    column = Integer.parseInt(optionValue(args, i++, usage));
+                    break;
+                default:
+                    if (positional++ == 0) {
+                        input = args[i];
+                    } else {
+                        output = args[i];
+                    }
+                    break;
+            }
+        }
+        if (key == null) {
+            System.err.println(usage);
+            System.exit(2);
+        }
+        try (BlockDeaClient client = BlockDeaClient.builder(key).maxConnections(concurrency).build();
+                BufferedReader in = "-".equals(input)
+                        ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                        : Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8);
+                Writer out = "-".equals(output)
+                        ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                        : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+            new BulkChecker(client, concurrency, column, DEFAULT_REPORT_INTERVAL).run(in, out, p -> System.err.println(p));
+        }
+    }
+
+    /**
+     * Receives progress reports while a bulk check runs. Reports are delivered
+     * on lookup threads, at most once per report interval, plus once at the
+     * end.
+     */
+    public interface ProgressListener {
+
+        /**
+         * @param progress Accepts the progress so far.
+         */
+        void progress(Progress progress);
+    }
+
+    /**
+     * Immutable snapshot of a bulk check's progress.
+     */
+    public static final class Progress {
+
+        private final long lines;
+        private final long rejected;
+        private final long submitted;
+        private final long completed;
+        private final long allowed;
+        private final long blocked;
+        private final long failed;
+        private final long elapsedMillis;
+
+        private Progress(long lines, long rejected, long submitted, long completed, long allowed, long blocked, long failed, long elapsedMillis) {
+            this.lines = lines;
+            this.rejected = rejected;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.allowed = allowed;
+            this.blocked = blocked;
+            this.failed = failed;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * @return Returns the number of input lines read.
+         */
+        public long getLines() {
+            return lines;
+        }
+
+        /**
+         * @return Returns the number of lines whose value is not a domain,
+         * email address or URL, each written as fail_input_domain.
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return Returns the number of distinct domains sent for checking.
+         */
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        /**
+         * @return Returns the number of domains with a result.
+         */
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getAllowed() {
+            return allowed;
+        }
+
+        public long getBlocked() {
+            return blocked;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return Returns completed lookups per second.
+         */
+        public double getThroughput() {
+            return elapsedMillis == 0 ? 0 : completed * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d lines (%d rejected), %d/%d domains checked (%d allow, %d block, %d failure), %.1f/s",
+                    lines, rejected, completed, submitted, allowed, blocked, failed, getThroughput());
+        }
+    }
+
+    /**
+     * Mutable state of one {@link #run} call, shared with the lookup threads.
+     */
+    private final class Run {
+
+        private final Writer out;
+        private final ProgressListener listener;
+        private final long started = System.nanoTime();
+        private final AtomicLong lastReport = new AtomicLong(started);
+        private final AtomicLong lines = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong allowed = new AtomicLong();
+        private final AtomicLong blocked = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile IOException writeError;
+
+        private Run(Writer out, ProgressListener listener) {
+            this.out = out;
+            this.listener = listener;
+        }
+
+        private void complete(String domain, Verdict verdict, Throwable ex) {
+            String row;
+            if (ex != null) {
+                failed.incrementAndGet();
+                row = domain + ",FAILURE,io_error";
+            } else if (verdict == Verdict.ALLOW) {
+                allowed.incrementAndGet();
+                row = domain + ",ALLOW";
+            } else if (verdict == Verdict.BLOCK) {
+                blocked.incrementAndGet();
+                row = domain + ",BLOCK";
+            } else {
+                failed.incrementAndGet();
+                row = domain + ",FAILURE," + verdict.getResponse();
+            }
+            write(row);
+            completed.incrementAndGet();
+            report();
+        }
+
+        /**
+         * Writes the row of a value the normalizer rejected.
+         */
+        private void reject(String field) {
+            rejected.incrementAndGet();
+            write(quote(field) + ",FAILURE," + Verdict.FAIL_INPUT_DOMAIN.getResponse());
+            report();
+        }
+
+        private void write(String row) {
+            try {
+                synchronized (out) {
+                    out.write(row);
+                    out.write('\n');
+                }
+            } catch (IOException writeEx) {
+                writeError = writeEx;
+            }
+        }
+
+        private void report() {
+            if (listener == null) {
+                return;
+            }
+            long now = System.nanoTime();
+            long last = lastReport.get();
+            if (now - last >= TimeUnit.MILLISECONDS.toNanos(reportInterval) && lastReport.compareAndSet(last, now)) {
+                listener.progress(snapshot());
+            }
+        }
+
+        private void rethrow() throws IOException {
+            if (writeError != null) {
+                throw writeError;
+            }
+        }
+
+        private Progress snapshot() {
+            return new Progress(lines.get(), rejected.get(), submitted.get(), completed.get(), allowed.get(), blocked.get(), failed.get(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+}
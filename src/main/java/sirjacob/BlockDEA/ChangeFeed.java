@@ -0,0 +1,435 @@
+package sirjacob.BlockDEA;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Re-screens domains and reports only the ones whose verdict changed. Every
+ * domain is looked up fresh with {@link BlockDeaClient#recheckDomain(String)}
+ * and compared with the last verdict in the client's {@link VerdictStore},
+ * which is then replaced; expired verdicts still count as the last one known.
+ * A domain is a transition if it was ALLOW and is now BLOCK, was BLOCK and is
+ * now ALLOW, or was not stored at all. Failures are never transitions and
+ * leave the stored verdict alone, so a domain that could not be checked is
+ * compared again on the next run.
+ * <p>
+ * Input is read like {@link BulkChecker}'s. Change log rows are
+ * {@code domain,previous,current}, with an empty previous verdict for new
+ * domains (e.g. {@code example.com,ALLOW,BLOCK} or {@code example.com,,ALLOW}),
+ * in completion order. Since the store is the baseline, use one without
+ * background compaction, or with time to live values longer than the time
+ * between runs, or compacted domains are reported as new again.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class ChangeFeed {
+
+    private final BlockDeaClient client;
+    private final VerdictStore store;
+    private final int concurrency;
+    private final int column;
+    private final long reportInterval;
+
+    /**
+     * @param client Accepts the client used for lookups; it must have been
+     * built with a {@link BlockDeaClient.Builder#store(VerdictStore) store}.
+     * @param concurrency Accepts the maximum number of lookups in flight.
+     * @param column Accepts the zero based CSV column holding the address or
+     * domain; use 0 for plain line-delimited input.
+     * @param reportInterval Accepts the minimum time between progress reports
+     * in milliseconds.
+     */
+    public ChangeFeed(BlockDeaClient client, int concurrency, int column, long reportInterval) {
+        if (client.getStore() == null) {
+            throw new IllegalArgumentException("The client has no verdict store to compare with");
+        }
+        if (concurrency <= 0 || column < 0 || reportInterval < 0) {
+            throw new IllegalArgumentException("Concurrency must be positive and column/interval must not be negative");
+        }
+        this.client = client;
+        this.store = client.getStore();
+        this.concurrency = concurrency;
+        this.column = column;
+        this.reportInterval = reportInterval;
+    }
+
+    /**
+     * Re-screens a single domain.
+     *
+     * @param domain Accepts a domain, email address or URL.
+     * @return Returns the transition, or null if the verdict did not change
+     * or the domain could not be checked.
+     * @throws IOException If BDEA or the store could not be reached.
+     */
+    public Change check(String domain) throws IOException {
+        String key = client.normalize(domain);
+        if (key == null) {
+            return null;
+        }
+        Verdict previous = store.getLatest(key);
+        return Change.of(key, previous, client.recheckDomain(key));
+    }
+
+    /**
+     * Reads every line of the input, re-screens each distinct domain once and
+     * writes a row for every transition. Returns once all lookups have
+     * finished.
+     *
+     * @param in Accepts the input, which is not closed.
+     * @param out Accepts where change log rows are written; it is flushed but
+     * not closed.
+     * @param listener Accepts a listener for progress reports, or null.
+     * @return Returns the final progress.
+     * @throws IOException If the input or the store could not be read or the
+     * output could not be written.
+     */
+    public Progress run(BufferedReader in, Writer out, ProgressListener listener) throws IOException {
+        final Run run = new Run(out, listener);
+        Set<String> seen = new HashSet<>();
+        Semaphore permits = new Semaphore(concurrency);
+        String line;
+        try {
+            while ((line = in.readLine()) != null) {
+                run.lines.incrementAndGet();
+                final String domain = BulkChecker.extractDomain(line, column, client.getNormalizer());
+                if (domain == null || !seen.add(domain)) {
+                    continue;
+                }
+                //Read before the recheck replaces it.
+                final Verdict previous = store.getLatest(domain);
+                run.submitted.incrementAndGet();
+                permits.acquire();
+                client.recheckDomainAsync(domain).whenComplete((verdict, ex) -> {
+                    try {
+                        run.complete(domain, previous, verdict, ex);
+                    } finally {
+                        permits.release();
+                    }
+                });
+                run.rethrow();
+            }
+            permits.acquire(concurrency);
+            permits.release(concurrency);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while re-screening domains", ex);
+        }
+        run.rethrow();
+        synchronized (out) {
+            out.flush();
+        }
+        Progress progress = run.snapshot();
+        if (listener != null) {
+            listener.progress(progress);
+        }
+        return progress;
+    }
+
+    /**
+     * Command line entry point.
+     * <p>
+     * Usage: {@code ChangeFeed [--key KEY] [--concurrency N] [--column N]
+     * --store DIR [input|-] [output|-]}. The key may also be supplied through
+     * the BDEA_API_KEY environment variable. The store directory keeps the
+     * verdicts between runs; the first run reports every domain as new. Input
+     * and output default to stdin and stdout; progress is reported on stderr.
+     *
+     * @param args the command line arguments
+     * @throws IOException If the store, input or output could not be opened.
+     */
+    public static void main(String[] args) throws IOException {
+        String usage = "Usage: ChangeFeed [--key KEY] [--concurrency N] [--column N] --store DIR [input|-] [output|-]";
+        String key = System.getenv("BDEA_API_KEY");
+        int concurrency = BulkChecker.DEFAULT_CONCURRENCY;
+        int column = 0;
+        String storeDirectory = null;
+        String input = "-";
+        String output = "-";
+        int positional = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--key":
+                    key = BulkChecker.optionValue(args, i++, usage);
+                    break;
+                case "--concurrency":
+                    concurrency = Integer.parseInt(BulkChecker.optionValue(args, i++, usage));
+                    break;
+                case "--column":
+                    column = Integer.parseInt(BulkChecker.optionValue(args, i++, usage));
+                    break;
+                case "--store":
+                    storeDirectory = BulkChecker.optionValue(args, i++, usage);
+                    break;
+                default:
+                    if (positional++ == 0) {
+                        input = args[i];
+                    } else {
+                        output = args[i];
+                    }
+                    break;
+            }
+        }
+        if (key == null || storeDirectory == null) {
+            System.err.println(usage);
+            System.exit(2);
+        }
+        //Verdicts never expire as a baseline, and only change when rechecked.
+        try (VerdictStore store = new VerdictStore(Paths.get(storeDirectory), Long.MAX_VALUE / 2, Long.MAX_VALUE / 2, 0);
+                BlockDeaClient client = BlockDeaClient.builder(key).maxConnections(concurrency).store(store).build();
+                BufferedReader in = "-".equals(input)
+                        ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                        : Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8);
+                Writer out = "-".equals(output)
+                        ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                        : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+            new ChangeFeed(client, concurrency, column, BulkChecker.DEFAULT_REPORT_INTERVAL).run(in, out, p -> System.err.println(p));
+        }
+    }
+
+    /**
+     * A verdict transition of one domain.
+     */
+    public static final class Change {
+
+        private final String domain;
+        private final Verdict previous;
+        private final Verdict current;
+
+        private Change(String domain, Verdict previous, Verdict current) {
+            this.domain = domain;
+            this.previous = previous;
+            this.current = current;
+        }
+
+        /**
+         * @return Returns the transition, or null if there is none.
+         */
+        private static Change of(String domain, Verdict previous, Verdict current) {
+            if (current.isFailure() || current == previous) {
+                return null;
+            }
+            return new Change(domain, previous, current);
+        }
+
+        public String getDomain() {
+            return domain;
+        }
+
+        /**
+         * @return Returns the last verdict known, or null if the domain is new.
+         */
+        public Verdict getPrevious() {
+            return previous;
+        }
+
+        /**
+         * @return Returns the fresh verdict, {@link Verdict#ALLOW} or
+         * {@link Verdict#BLOCK}.
+         */
+        public Verdict getCurrent() {
+            return current;
+        }
+
+        /**
+         * @return Returns true if the domain was not stored before.
+         */
+        public boolean isNew() {
+            return previous == null;
+        }
+
+        /**
+         * @return Returns the change log row, without a line break.
+         */
+        @Override
+        public String toString() {
+            return domain + "," + (previous != null ? previous.name() : "") + "," + current.name();
+        }
+    }
+
+    /**
+     * Receives progress reports while a re-screen runs. Reports are delivered
+     * on lookup threads, at most once per report interval, plus once at the
+     * end.
+     */
+    public interface ProgressListener {
+
+        /**
+         * @param progress Accepts the progress so far.
+         */
+        void progress(Progress progress);
+    }
+
+    /**
+     * Immutable snapshot of a re-screen's progress.
+     */
+    public static final class Progress {
+
+        private final long lines;
+        private final long submitted;
+        private final long completed;
+        private final long unchanged;
+        private final long added;
+        private final long changed;
+        private final long failed;
+        private final long elapsedMillis;
+
+        private Progress(long lines, long submitted, long completed, long unchanged, long added, long changed, long failed, long elapsedMillis) {
+            this.lines = lines;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.unchanged = unchanged;
+            this.added = added;
+            this.changed = changed;
+            this.failed = failed;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * @return Returns the number of input lines read.
+         */
+        public long getLines() {
+            return lines;
+        }
+
+        /**
+         * @return Returns the number of distinct domains sent for checking.
+         */
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        /**
+         * @return Returns the number of domains with a result.
+         */
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * @return Returns the number of domains whose verdict did not change.
+         */
+        public long getUnchanged() {
+            return unchanged;
+        }
+
+        /**
+         * @return Returns the number of domains that were not stored before.
+         */
+        public long getAdded() {
+            return added;
+        }
+
+        /**
+         * @return Returns the number of domains that went from ALLOW to BLOCK
+         * or back.
+         */
+        public long getChanged() {
+            return changed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return Returns completed lookups per second.
+         */
+        public double getThroughput() {
+            return elapsedMillis == 0 ? 0 : completed * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d lines, %d/%d domains re-screened (%d unchanged, %d new, %d changed, %d failure), %.1f/s",
+                    lines, completed, submitted, unchanged, added, changed, failed, getThroughput());
+        }
+    }
+
+    /**
+     * Mutable state of one {@link #run} call, shared with the lookup threads.
+     */
+    private final class Run {
+
+        private final Writer out;
+        private final ProgressListener listener;
+        private final long started = System.nanoTime();
+        private final AtomicLong lastReport = new AtomicLong(started);
+        private final AtomicLong lines = new AtomicLong();
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong unchanged = new AtomicLong();
+        private final AtomicLong added = new AtomicLong();
+        private final AtomicLong changed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile IOException writeError;
+
+        private Run(Writer out, ProgressListener listener) {
+            this.out = out;
+            this.listener = listener;
+        }
+
+        private void complete(String domain, Verdict previous, Verdict verdict, Throwable ex) {
+            Change change = null;
+            if (ex != null || verdict.isFailure()) {
+                failed.incrementAndGet();
+            } else if ((change = Change.of(domain, previous, verdict)) == null) {
+                unchanged.incrementAndGet();
+            } else if (change.isNew()) {
+                added.incrementAndGet();
+            } else {
+                changed.incrementAndGet();
+            }
+            if (change != null) {
+                try {
+                    synchronized (out) {
+                        out.write(change.toString());
+                        out.write('\n');
+                    }
+                } catch (IOException writeEx) {
+                    writeError = writeEx;
+                }
+            }
+            completed.incrementAndGet();
+            report();
+        }
+
+        private void report() {
+            if (listener == null) {
+                return;
+            }
+            long now = System.nanoTime();
+            long last = lastReport.get();
+            if (now - last >= TimeUnit.MILLISECONDS.toNanos(reportInterval) && lastReport.compareAndSet(last, now)) {
+                listener.progress(snapshot());
+            }
+        }
+
+        private void rethrow() throws IOException {
+            if (writeError != null) {
+                throw writeError;
+            }
+        }
+
+        private Progress snapshot() {
+            return new Progress(lines.get(), submitted.get(), completed.get(), unchanged.get(), added.get(), changed.get(), failed.get(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package sirjacob.BlockDEA;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops sending lookups to BDEA while it is failing. The breaker tracks the
+ * outcome of the last {@code windowSize} requests; once at least
+ * {@code minimumCalls} of them are recorded and the share of failures reaches
+ * {@code failureRate} it opens, and requests are refused for
+ * {@code openDuration}. After that it lets a single probe through
+ * (half-open): a success closes it again, a failure re-opens it.
+ * <p>
+ * A failure is an I/O error, fail_server or a response that could not be
+ * understood. Other answers, including fail_key, show that BDEA is up and
+ * count as successes.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class CircuitBreaker {
+
+    /**
+     * State of the breaker.
+     */
+    public enum State {
+        /**
+         * Requests flow normally.
+         */
+        CLOSED,
+        /**
+         * Requests are refused until the open duration has passed.
+         */
+        OPEN,
+        /**
+         * A single probe request is in flight to test whether BDEA has
+         * recovered.
+         */
+        HALF_OPEN
+    }
+
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final double failureRate;
+    private final long openNanos;
+    private int next;
+    private int recorded;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private long timesOpened;
+
+    /**
+     * Creates a breaker that opens when half of the last 20 requests failed
+     * and stays open for 30 seconds.
+     */
+    public CircuitBreaker() {
+        this(20, 10, 0.5, TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * @param windowSize Accepts the number of recent requests considered.
+     * @param minimumCalls Accepts the number of requests that must be
+     * recorded before the breaker can open.
+     * @param failureRate Accepts the share of failed requests that opens the
+     * breaker, between 0 (exclusive) and 1.
+     * @param openDuration Accepts how long the breaker stays open before a
+     * probe is allowed, in milliseconds.
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRate, long openDuration) {
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize || failureRate <= 0 || failureRate > 1 || openDuration < 0) {
+            throw new IllegalArgumentException("Invalid circuit breaker settings");
+        }
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRate = failureRate;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openDuration);
+    }
+
+    /**
+     * Asks whether a request may be made now. When the open duration has
+     * passed this moves the breaker to half-open and admits the caller as the
+     * probe; the caller must then report the outcome.
+     *
+     * @return Returns true if the request may be made.
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+            default:
+                //A probe whose outcome was never reported is replaced after
+                //another open duration, so the breaker cannot stay stuck.
+                if (System.nanoTime() - openedAt >= openNanos) {
+                    state = State.HALF_OPEN;
+                    openedAt = System.nanoTime();
+                    return true;
+                }
+                return false;
+        }
+    }
+
+    /**
+     * Records a request that reached BDEA and got a usable answer.
+     */
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            state = State.CLOSED;
+            return;
+        }
+        record(false);
+    }
+
+    /**
+     * Records a failed request.
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minimumCalls && failures >= failureRate * recorded) {
+            open();
+        }
+    }
+
+    /**
+     * @return Returns the current state.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return Returns how often the breaker has opened.
+     */
+    public synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        timesOpened++;
+        reset();
+    }
+
+    private void reset() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,22 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a lookup needs BDEA but the client's {@link CircuitBreaker} is
+ * open and no fallback verdict is configured.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class CircuitOpenException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param domain Accepts the domain that could not be looked up.
+     */
+    public CircuitOpenException(String domain) {
+        super("BDEA circuit breaker is open; not looking up " + domain);
+    }
+}
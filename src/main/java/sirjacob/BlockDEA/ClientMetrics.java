@@ -0,0 +1,306 @@
+package sirjacob.BlockDEA;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Built-in instrumentation of a {@link BlockDeaClient}: latency histograms
+ * and error counts per endpoint, counts of every EasyAPI verdict, the last
+ * reported credits, and live cache, in-flight and coalescing figures read
+ * from the client. Every client has one, available from
+ * {@link BlockDeaClient#getMetrics()}; it can be published over JMX with
+ * {@link #register(String)} or {@link BlockDeaClient.Builder#jmxName(String)}.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class ClientMetrics implements MetricsListener, ClientMetricsMXBean {
+
+    /**
+     * JMX domain the metrics are registered under.
+     */
+    public static final String JMX_DOMAIN = "sirjacob.BlockDEA";
+
+    private static final Verdict[] VERDICTS = Verdict.values();
+
+    private final BlockDeaClient client;
+    private volatile LatencyHistogram easyApi = new LatencyHistogram();
+    private volatile LatencyHistogram statusApi = new LatencyHistogram();
+    private volatile LongAdder easyApiErrors = new LongAdder();
+    private volatile LongAdder statusApiErrors = new LongAdder();
+    private volatile AtomicLongArray verdicts = new AtomicLongArray(VERDICTS.length);
+    private volatile ObjectName objectName;
+
+    ClientMetrics(BlockDeaClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public void onRequest(Endpoint endpoint, long nanos, Throwable failure) {
+        if (endpoint == Endpoint.EASY_API) {
+            easyApi.record(nanos);
+            if (failure != null) {
+                easyApiErrors.increment();
+            }
+        } else {
+            statusApi.record(nanos);
+            if (failure != null) {
+                statusApiErrors.increment();
+            }
+        }
+    }
+
+    @Override
+    public void onVerdict(String domain, Verdict verdict) {
+        verdicts.incrementAndGet(verdict.ordinal());
+    }
+
+    /**
+     * @return Returns the latency histogram of EasyAPI requests.
+     */
+    public LatencyHistogram getEasyApiLatency() {
+        return easyApi;
+    }
+
+    /**
+     * @return Returns the latency histogram of Status API requests.
+     */
+    public LatencyHistogram getStatusApiLatency() {
+        return statusApi;
+    }
+
+    /**
+     * @param verdict Accepts a verdict.
+     * @return Returns how often the EasyAPI returned the verdict.
+     */
+    public long getVerdictCount(Verdict verdict) {
+        return verdicts.get(verdict.ordinal());
+    }
+
+    /**
+     * @return Returns the last key status received, or null if the status
+     * has not been checked yet.
+     */
+    public KeyStatus getLastStatus() {
+        return client.getStatusPoller().getStatus();
+    }
+
+    @Override
+    public long getEasyApiRequests() {
+        return easyApi.getCount();
+    }
+
+    @Override
+    public long getEasyApiErrors() {
+        return easyApiErrors.sum();
+    }
+
+    @Override
+    public double getEasyApiMeanMillis() {
+        return easyApi.getMeanMillis();
+    }
+
+    @Override
+    public double getEasyApiP50Millis() {
+        return easyApi.getPercentileMillis(0.5);
+    }
+
+    @Override
+    public double getEasyApiP99Millis() {
+        return easyApi.getPercentileMillis(0.99);
+    }
+
+    @Override
+    public double getEasyApiMaxMillis() {
+        return easyApi.getMaxMillis();
+    }
+
+    @Override
+    public long getStatusApiRequests() {
+        return statusApi.getCount();
+    }
+
+    @Override
+    public long getStatusApiErrors() {
+        return statusApiErrors.sum();
+    }
+
+    @Override
+    public double getStatusApiMeanMillis() {
+        return statusApi.getMeanMillis();
+    }
+
+    @Override
+    public double getStatusApiP50Millis() {
+        return statusApi.getPercentileMillis(0.5);
+    }
+
+    @Override
+    public double getStatusApiP99Millis() {
+        return statusApi.getPercentileMillis(0.99);
+    }
+
+    @Override
+    public double getStatusApiMaxMillis() {
+        return statusApi.getMaxMillis();
+    }
+
+    @Override
+    public Map<String, Long> getVerdictCounts() {
+        AtomicLongArray counts = verdicts;
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (Verdict verdict : VERDICTS) {
+            map.put(verdict.getResponse(), counts.get(verdict.ordinal()));
+        }
+        return map;
+    }
+
+    @Override
+    public long getAllowCount() {
+        return getVerdictCount(Verdict.ALLOW);
+    }
+
+    @Override
+    public long getBlockCount() {
+        return getVerdictCount(Verdict.BLOCK);
+    }
+
+    @Override
+    public long getFailureCount() {
+        AtomicLongArray counts = verdicts;
+        long failures = 0;
+        for (Verdict verdict : VERDICTS) {
+            if (verdict.isFailure()) {
+                failures += counts.get(verdict.ordinal());
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public long getCacheHits() {
+        VerdictCache cache = client.getCache();
+        return cache != null ? cache.getHits() : 0;
+    }
+
+    @Override
+    public long getCacheMisses() {
+        VerdictCache cache = client.getCache();
+        return cache != null ? cache.getMisses() : 0;
+    }
+
+    @Override
+    public long getCacheStaleHits() {
+        VerdictCache cache = client.getCache();
+        return cache != null ? cache.getStaleHits() : 0;
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        VerdictCache cache = client.getCache();
+        return cache != null ? cache.getHitRatio() : 0;
+    }
+
+    @Override
+    public int getInFlightLookupCount() {
+        return client.getInFlightLookupCount();
+    }
+
+    @Override
+    public int getInFlightRequestCount() {
+        return client.getInFlightRequestCount();
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        return client.getCoalescedCount();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return client.getRejectedCount();
+    }
+
+    @Override
+    public long getRetryCount() {
+        return client.getRetryCount();
+    }
+
+    @Override
+    public long getHedgedCount() {
+        return client.getHedgedCount();
+    }
+
+    @Override
+    public String getCircuitState() {
+        CircuitBreaker breaker = client.getCircuitBreaker();
+        return breaker != null ? breaker.getState().name() : null;
+    }
+
+    @Override
+    public long getCreditsRemaining() {
+        KeyStatus status = getLastStatus();
+        return status != null ? status.getCredits() : -1;
+    }
+
+    @Override
+    public long getStatusAgeMillis() {
+        return client.getStatusPoller().getAge();
+    }
+
+    @Override
+    public String getCommercialCreditStatus() {
+        KeyStatus status = getLastStatus();
+        return status != null ? status.getCommercialCreditStatus() : null;
+    }
+
+    @Override
+    public void reset() {
+        easyApi = new LatencyHistogram();
+        statusApi = new LatencyHistogram();
+        easyApiErrors = new LongAdder();
+        statusApiErrors = new LongAdder();
+        verdicts = new AtomicLongArray(VERDICTS.length);
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server as
+     * {@code sirjacob.BlockDEA:type=BlockDeaClient,name=<name>}. The client
+     * unregisters them when it is closed.
+     *
+     * @param name Accepts a name distinguishing this client from others in
+     * the same JVM.
+     * @return Returns the name the metrics were registered under.
+     * @throws JMException If the name is invalid or already in use.
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        if (objectName != null) {
+            throw new IllegalStateException("Already registered as " + objectName);
+        }
+        ObjectName on = new ObjectName(JMX_DOMAIN + ":type=BlockDeaClient,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+        objectName = on;
+        return on;
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, if registered.
+     *
+     * @throws JMException If the metrics could not be unregistered.
+     */
+    public synchronized void unregister() throws JMException {
+        if (objectName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            objectName = null;
+        }
+    }
+}
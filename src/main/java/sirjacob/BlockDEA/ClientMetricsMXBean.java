@@ -0,0 +1,111 @@
+package sirjacob.BlockDEA;
+
+import java.util.Map;
+
+/**
+ * JMX view of a {@link BlockDeaClient}'s {@link ClientMetrics}. Times are in
+ * milliseconds.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public interface ClientMetricsMXBean {
+
+    long getEasyApiRequests();
+
+    long getEasyApiErrors();
+
+    double getEasyApiMeanMillis();
+
+    double getEasyApiP50Millis();
+
+    double getEasyApiP99Millis();
+
+    double getEasyApiMaxMillis();
+
+    long getStatusApiRequests();
+
+    long getStatusApiErrors();
+
+    double getStatusApiMeanMillis();
+
+    double getStatusApiP50Millis();
+
+    double getStatusApiP99Millis();
+
+    double getStatusApiMaxMillis();
+
+    /**
+     * @return Returns the number of EasyAPI verdicts received, keyed by the
+     * raw response (ok, block, fail_key, ...).
+     */
+    Map<String, Long> getVerdictCounts();
+
+    long getAllowCount();
+
+    long getBlockCount();
+
+    long getFailureCount();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    /**
+     * @return Returns the number of lookups answered with an expired verdict
+     * within the cache's grace period.
+     */
+    long getCacheStaleHits();
+
+    double getCacheHitRatio();
+
+    /**
+     * @return Returns the number of distinct domains being looked up past the
+     * cache, including lookups waiting for the rate limiter or a retry.
+     */
+    int getInFlightLookupCount();
+
+    /**
+     * @return Returns the number of requests to BDEA's EasyAPI and Status API
+     * in progress.
+     */
+    int getInFlightRequestCount();
+
+    long getCoalescedCount();
+
+    long getRejectedCount();
+
+    long getRetryCount();
+
+    long getHedgedCount();
+
+    /**
+     * @return Returns the circuit breaker state, or null if the client has
+     * no breaker.
+     */
+    String getCircuitState();
+
+    /**
+     * @return Returns the credits reported by the last status check, or -1
+     * if the status has not been checked yet or did not include them.
+     */
+    long getCreditsRemaining();
+
+    /**
+     * @return Returns the age of the last key status, or -1 if the status
+     * has not been checked yet.
+     */
+    long getStatusAgeMillis();
+
+    /**
+     * @return Returns the commercial credit status reported by the last
+     * status check, or null if the status has not been checked yet.
+     */
+    String getCommercialCreditStatus();
+
+    /**
+     * Resets the request histograms and verdict counters. Cache statistics
+     * and gauges are not affected.
+     */
+    void reset();
+}
@@ -0,0 +1,76 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Asks providers in order and returns the first answer, so later (slower or
+ * paid) providers are only asked about domains the earlier ones cannot
+ * answer. For example, local rules, then a file of known verdicts, then BDEA:
+ * <pre>
+ * new CompositeVerdictProvider(VerdictProvider.of(rules),
+ *         FileVerdictProvider.load(known), new EasyApiProvider(key, transport))
+ * </pre>
+ * A failure verdict is an answer too; an exception from a provider ends the
+ * lookup. A {@link BlockDeaClient} asks the members itself, so it knows
+ * whether an answer came from an authoritative one.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class CompositeVerdictProvider implements VerdictProvider {
+
+    private final VerdictProvider[] providers;
+
+    /**
+     * @param providers Accepts the providers, in the order they are asked.
+     */
+    public CompositeVerdictProvider(VerdictProvider... providers) {
+        for (VerdictProvider provider : providers) {
+            if (provider == null) {
+                throw new NullPointerException("provider");
+            }
+        }
+        this.providers = providers.clone();
+    }
+
+    /**
+     * @param providers Accepts the providers, in the order they are asked.
+     */
+    public CompositeVerdictProvider(List<? extends VerdictProvider> providers) {
+        this(providers.toArray(new VerdictProvider[providers.size()]));
+    }
+
+    /**
+     * @param domain Accepts a normalized domain.
+     * @return Returns the first answer, or null if no provider has one.
+     * @throws IOException If a provider asked could not reach its source.
+     */
+    @Override
+    public Verdict getVerdict(String domain) throws IOException {
+        for (VerdictProvider provider : providers) {
+            Verdict verdict = provider.getVerdict(domain);
+            if (verdict != null) {
+                return verdict;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Returns the providers, in the order they are asked.
+     */
+    public List<VerdictProvider> getProviders() {
+        return Collections.unmodifiableList(Arrays.asList(providers));
+    }
+
+    /**
+     * Lets a client ask the providers one by one, to tell which one answered,
+     * without copying them on every lookup. The array must not be modified.
+     */
+    VerdictProvider[] members() {
+        return providers;
+    }
+}
@@ -0,0 +1,172 @@
+package sirjacob.BlockDEA;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket that paces outgoing EasyAPI lookups and follows the credit
+ * budget reported by the Status API. While the commercial credit status is
+ * good lookups run at the configured rate; when it is low the rate is reduced
+ * by {@code lowRateFactor}; when it is exhausted (or the local estimate of
+ * remaining credits reaches zero) no tokens are handed out at all until a
+ * later status shows credits again.
+ * <p>
+ * Each granted token is counted against the credits of the last status, so
+ * the estimate keeps falling between status refreshes.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class CreditRateLimiter {
+
+    /**
+     * How the limiter is currently pacing lookups.
+     */
+    public enum Mode {
+        /**
+         * Credits are good (or unknown); lookups run at the full rate.
+         */
+        NORMAL,
+        /**
+         * Credits are low; lookups run at the reduced rate.
+         */
+        THROTTLED,
+        /**
+         * Credits are exhausted; no lookups are allowed.
+         */
+        EXHAUSTED
+    }
+
+    private final double rate;
+    private final double burst;
+    private final double lowRateFactor;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    private Mode mode = Mode.NORMAL;
+    private long credits = -1;
+    private long used;
+
+    /**
+     * @param permitsPerSecond Accepts the lookup rate while credits are good.
+     * @param burst Accepts the number of lookups that may be made back to back
+     * after an idle period.
+     * @param lowRateFactor Accepts the fraction of the rate used while credits
+     * are low, between 0 (exclusive) and 1.
+     */
+    public CreditRateLimiter(double permitsPerSecond, int burst, double lowRateFactor) {
+        if (permitsPerSecond <= 0 || burst <= 0 || lowRateFactor <= 0 || lowRateFactor > 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive and the low rate factor must be in (0, 1]");
+        }
+        this.rate = permitsPerSecond;
+        this.burst = burst;
+        this.lowRateFactor = lowRateFactor;
+        this.tokens = burst;
+    }
+
+    /**
+     * Takes a token, waiting for one if necessary.
+     *
+     * @param timeout Accepts the longest time to wait, in milliseconds.
+     * @return Returns true if a token was taken; false if credits are
+     * exhausted or no token became available in time.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean acquire(long timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (true) {
+            long wait;
+            synchronized (this) {
+                if (mode == Mode.EXHAUSTED) {
+                    return false;
+                }
+                refill();
+                if (tokens >= 1) {
+                    tokens--;
+                    used++;
+                    if (credits >= 0 && used >= credits) {
+                        mode = Mode.EXHAUSTED;
+                    }
+                    return true;
+                }
+                wait = (long) ((1 - tokens) / currentRate() * TimeUnit.SECONDS.toNanos(1));
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.min(wait, remaining));
+        }
+    }
+
+    /**
+     * Applies a fresh key status: resets the credit estimate and picks the
+     * mode from the commercial credit status.
+     *
+     * @param status Accepts the status returned by the Status API.
+     */
+    public synchronized void update(KeyStatus status) {
+        if (!status.isActive()) {
+            return;
+        }
+        refill();
+        //A status without credits leaves them unknown rather than exhausted.
+        credits = status.getCredits() >= 0 ? status.getCredits() : -1;
+        used = 0;
+        String creditStatus = status.getCommercialCreditStatus();
+        if ("exhausted".equals(creditStatus) || credits == 0) {
+            mode = Mode.EXHAUSTED;
+        } else if ("low".equals(creditStatus)) {
+            mode = Mode.THROTTLED;
+        } else {
+            mode = Mode.NORMAL;
+        }
+    }
+
+    /**
+     * Stops handing out tokens until the next {@link #update(KeyStatus)},
+     * e.g. after the EasyAPI answered fail_key_low_credits.
+     */
+    public synchronized void markExhausted() {
+        mode = Mode.EXHAUSTED;
+    }
+
+    public synchronized Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return Returns the estimated number of credits left, or -1 if no
+     * status with credits has been applied yet.
+     */
+    public synchronized long getRemainingCredits() {
+        return credits < 0 ? -1 : Math.max(0, credits - used);
+    }
+
+    /**
+     * @return Returns the number of lookups that can be made right now
+     * without waiting.
+     */
+    public synchronized double getAvailableTokens() {
+        if (mode == Mode.EXHAUSTED) {
+            return 0;
+        }
+        refill();
+        return tokens;
+    }
+
+    /**
+     * @return Returns the current lookup rate per second.
+     */
+    public synchronized double getRate() {
+        return mode == Mode.EXHAUSTED ? 0 : currentRate();
+    }
+
+    private double currentRate() {
+        return mode == Mode.THROTTLED ? rate * lowRateFactor : rate;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * currentRate() / TimeUnit.SECONDS.toNanos(1));
+        refilledAt = now;
+    }
+}
@@ -1,21 +1,24 @@
 package sirjacob.BlockDEA;
 
 import java.awt.Desktop;
-import java.io.BufferedReader;
+import java.awt.EventQueue;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
-import org.apache.commons.lang3.StringUtils;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 /**
  *
@@ -38,7 +41,7 @@ import org.json.simple.parser.ParseException;
  * {@link #SUPPORTED_STATUS_API_VERSION}, added {@link #showBadKeyError()},
  * added {@link #DEFAULT_TITLE} and {@link #appendTitle(String)}, added import
  * for JOptionPane, tweaked printing to GUI list in
- * {@link #statusToList(String, String, String, double, int, String, String,double)}.
+ * {@link #statusToList(String, String, String, double, long, String, String,double)}.
  * (11/16/2015)
  * <p>
  * 1.0: First release. (11/05/2015)
@@ -48,11 +51,36 @@ public class Display extends javax.swing.JFrame {
     /**
      * Latest tested version of Status API that is supported.
      */
-    private static final double SUPPORTED_STATUS_API_VERSION = 1.3;
+    private static final double SUPPORTED_STATUS_API_VERSION = BlockDeaClient.SUPPORTED_STATUS_API_VERSION;
     /**
      * Default title for the GUI window.
      */
     private static final String DEFAULT_TITLE = "Block DEA Client by Sir Jacob";
+    private static final Logger LOG = Logger.getLogger(Display.class.getName());
+    /**
+     * Transport shared by every client created by the GUI, so connections to
+     * BDEA are reused between button presses.
+     */
+    private final HttpTransport transport = new UrlConnectionTransport();
+    /**
+     * Verdict cache shared by every client created by the GUI.
+     */
+    private final VerdictCache cache = new VerdictCache();
+    /**
+     * Runs lookups off the event dispatch thread so the GUI stays responsive.
+     */
+    private final ExecutorService executor = LookupExecutors.newDefaultExecutor(4);
+    /**
+     * Bounded result log shown in the table (tblResults), newest first.
+     */
+    private final ResultLogModel results = new ResultLogModel();
+    /**
+     * Client for the key currently in ptxtKey, created on first use and
+     * replaced (and closed) when the key changes. Only touched on the event
+     * dispatch thread.
+     */
+    private BlockDeaClient client;
+    private String clientKey;
 
     /**
      * Creates new form Display
@@ -63,6 +91,12 @@ public class Display extends javax.swing.JFrame {
         ptxtKey.setEchoChar('*'); //Hide the API key with this char.
         setLocationRelativeTo(null); //Center the window.
         setTitle(DEFAULT_TITLE); //Set the default window title.
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                shutdown();
+            }
+        });
     }
 
     /**
@@ -87,9 +121,7 @@ public class Display extends javax.swing.JFrame {
      */
     private void checkStatusAPIVersion(double v) {
         if (v != SUPPORTED_STATUS_API_VERSION) {
-            System.out.println("[WARNING] This program not been tested with the Status API version you are using!");
-            System.out.println("[WARNING] Current Status API Version: " + v);
-            System.out.println("[WARNING] Supported Status API Version: " + SUPPORTED_STATUS_API_VERSION);
+            LOG.log(Level.WARNING, "This program has not been tested with Status API version {0} (supported: {1})", new Object[]{v, SUPPORTED_STATUS_API_VERSION});
             appendTitle("Untested Status API Version!");
         }
     }
@@ -103,19 +135,86 @@ public class Display extends javax.swing.JFrame {
     }
 
     /**
-     * @param str Accepts URL (as a string)
-     * @return Returns the first line of the website.
+     * Returns the client for the API key in the GUI password text input
+     * (ptxtKey), creating it if the key has changed since the last call.
+     *
+     * @since 1.4
+     * @return Returns a client for the supplied key, or null (after showing
+     * {@link #showBadKeyError()}) if the key is not alphanumeric.
+     */
+    private BlockDeaClient getClient() {
+        String key = getKey();
+        if (client != null && key.equals(clientKey)) {
+            return client;
+        }
+        closeClient();
+        try {
+            client = BlockDeaClient.builder(key).transport(transport).cache(cache).executor(executor).build();
+            clientKey = key;
+        } catch (IllegalArgumentException ex) {
+            showBadKeyError();
+            return null;
+        }
+        return client;
+    }
+
+    /**
+     * Closes the current client, if any. The shared transport, cache and
+     * executor are left open for the next client.
+     *
+     * @since 1.4
+     */
+    private void closeClient() {
+        if (client == null) {
+            return;
+        }
+        try {
+            client.close();
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Unable to close client", ex);
+        }
+        client = null;
+        clientKey = null;
+    }
+
+    /**
+     * Closes the client and releases the transport and executor shared by
+     * every client when the window closes.
+     *
+     * @since 1.4
      */
-    private String getURLData(String str) {
+    private void shutdown() {
+        closeClient();
+        executor.shutdown();
         try {
-            URL url = new URL(str);
-            BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(url.openStream()));
-            return bufferedReader.readLine();
-        } catch (NullPointerException | IOException ex) {
-            JOptionPane.showMessageDialog(this, "Please be sure to remove any protocals/ports from the domain you are checking. Ex: Don't include http(s)://", "Domain Error", JOptionPane.ERROR_MESSAGE);
-            //Logger.getLogger(Display.class.getName()).log(Level.SEVERE, null, ex);
+            transport.close();
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Unable to close transport", ex);
         }
-        return null;
+    }
+
+    /**
+     * Displays a JOptionPane that informs the user that BDEA could not be
+     * reached for the supplied domain.
+     *
+     * @since 1.4
+     * @param domain Accepts the domain that was being checked.
+     * @param cause Accepts the reason the check failed.
+     */
+    private void showConnectionError(String domain, Throwable cause) {
+        String reason = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+        JOptionPane.showMessageDialog(this, "BDEA could not be reached to check " + domain + ": " + reason, "Connection Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Displays a JOptionPane that informs the user that the supplied input is
+     * not a domain, email address or URL that can be checked.
+     *
+     * @since 1.4
+     * @param domain Accepts the input that was rejected.
+     */
+    private void showDomainError(String domain) {
+        JOptionPane.showMessageDialog(this, "\"" + domain + "\" is not a domain, email address or URL that can be checked.", "Domain Error", JOptionPane.ERROR_MESSAGE);
     }
 
     /**
@@ -141,54 +240,48 @@ public class Display extends javax.swing.JFrame {
 
     /**
      * Gets the status of the API key. Preformed when Key (Checkmark) is pressed
-     * on the GUI.
+     * on the GUI. The request runs in the background and the result is added
+     * to the result log on the event dispatch thread.
      */
-    @SuppressWarnings("UnusedAssignment")
     private void checkStatus() {
-        Object obj = null;
-        String response = getURLData("http://status.block-disposable-email.com/status/?apikey=" + getKey());
-        JSONParser jp = new JSONParser();
-        try {
-            obj = jp.parse(response);
-        } catch (ParseException ex) {
-            System.out.println("ParseException: " + ex);
+        BlockDeaClient client = getClient();
+        if (client == null) {
             return;
         }
-        JSONObject jo = (JSONObject) obj;
-        String rs = (String) jo.get("request_status");
-        String aks = (String) jo.get("apikeystatus");
+        client.checkStatusAsync().whenComplete((status, ex) -> EventQueue.invokeLater(() -> {
+            if (ex != null) {
+                LOG.log(Level.WARNING, "Unable to check key status", ex.getCause());
+            } else {
+                showStatus(status);
+            }
+        }));
+    }
+
+    /**
+     * Validates a key status and adds it to the result log.
+     *
+     * @since 1.4
+     * @param status Accepts the status returned by the Status API.
+     */
+    private void showStatus(KeyStatus status) {
         /**
-         * Gets and checks the Status API version.
+         * Checks the Status API version.
          */
-        double v = Double.parseDouble((String) jo.get("version"));
-        checkStatusAPIVersion(v);
+        checkStatusAPIVersion(status.getVersion());
         /**
          * If the request status or the API key status are not ok then there is
-         * no reason to continue to attempt to get values from the JSON object.
+         * no reason to continue to attempt to get values from the status.
          */
-        if (!"ok".equals(rs) || !"active".equals(aks)) {
+        if (!status.isActive()) {
             showBadKeyError();
             return;
         }
-        String st = (String) jo.get("servertime");
-        String temp_credits = (String) jo.get("credits");
-        int credits = 0;
-        if (temp_credits != null) {
-            credits = Integer.parseInt(temp_credits);
-        }
-        String ct = (String) jo.get("credits_time");
-        String ccs = (String) jo.get("commercial_credit_status");
-        Object temp_commercial_credit_status_percent = jo.get("commercial_credit_status_percent");
-        double ccsp = 0;
-        if (temp_commercial_credit_status_percent != null) {
-            ccsp = Double.valueOf(String.valueOf(temp_commercial_credit_status_percent));
-        }
-        statusToList(rs, aks, st, v, credits, ct, ccs, ccsp);
+        statusToList(status.getRequestStatus(), status.getApiKeyStatus(), status.getServerTime(), status.getVersion(), status.getCredits(), status.getCreditsTime(), status.getCommercialCreditStatus(), status.getCommercialCreditPercent());
     }
 
     /**
-     * Takes args from checkStatus() and displays the values on the GUI list.
-     * Parameter descriptions provided by BDEA.
+     * Takes args from checkStatus() and adds them to the result log as one
+     * row. Parameter descriptions provided by BDEA.
      *
      * @param requestStatus Describes if the server succeeded or found any
      * problems.
@@ -204,18 +297,16 @@ public class Display extends javax.swing.JFrame {
      * remaining credits.
      * @param commercialCreditPercent Remaining credits in percent.
      */
-    @SuppressWarnings({"UnusedAssignment", "ValueOfIncrementOrDecrementUsed"})
-    private void statusToList(String requestStatus, String apiKeyStatus, String serverTime, double version, int credits, String creditsTime, String commercialCreditStatus, double commercialCreditPercent) {
-        String customMsg = "";
-        String header1 = "~~~~~ Key Check ~~~~~";
-        int lineCount = 0;
-        list.add(header1, lineCount++);
-        list.add("Checking status on key... " + "(" + getKeyEnding() + ")", lineCount++);
-        list.add("Request Status: " + requestStatus.toUpperCase() + ", Version: " + version + ", Server Time: " + serverTime, lineCount++);
-        list.add("Key Status: " + apiKeyStatus.toUpperCase(), lineCount++);
-        customMsg = "";
-        list.add("Credits Remaining: " + credits + " :: (Last Updated in Server Time: " + creditsTime + ")", lineCount++);
+    private void statusToList(String requestStatus, String apiKeyStatus, String serverTime, double version, long credits, String creditsTime, String commercialCreditStatus, double commercialCreditPercent) {
+        StringBuilder msg = new StringBuilder(160);
+        msg.append("Request Status: ").append(requestStatus.toUpperCase())
+                .append(", Version: ").append(version)
+                .append(", Server Time: ").append(serverTime)
+                .append(" | Key Status: ").append(apiKeyStatus.toUpperCase())
+                .append(" | Credits Remaining: ").append(credits != KeyStatus.UNKNOWN_CREDITS ? Long.toString(credits) : "unknown")
+                .append(" (Last Updated in Server Time: ").append(creditsTime).append(")");
         if (commercialCreditStatus != null) {
+            String customMsg = "";
             switch (commercialCreditStatus) {
                 case "good":
                     customMsg = "Credits are higher than 20% of your last purchase";
@@ -227,53 +318,21 @@ public class Display extends javax.swing.JFrame {
                     customMsg = "You have exhausted your supply of credits!";
                     break;
             }
-            list.add("Credit Status: " + commercialCreditStatus.toUpperCase() + " :: " + customMsg, lineCount++);
-            customMsg = "";
-            /*            if (commercialCreditPercent == 1) {
-            customMsg = "100%";
-            } else {
-            String strPercent = String.valueOf(commercialCreditPercent);
-            strPercent = strPercent.substring(2, strPercent.length());
-            customMsg = strPercent + "%";
-            System.out.println(customMsg);
-            }
-            customMsg = "";*/
+            msg.append(" | Credit Status: ").append(commercialCreditStatus.toUpperCase()).append(" :: ").append(customMsg);
         }
-        list.add(null, lineCount++);
+        results.add("Key Check (" + getKeyEnding() + ")", msg.toString());
     }
 
     /**
      * Queries BDEA's EasyAPI (Simple Text Output Method) Checks the supplied
-     * domain (getDomain()) and adds its status to the list. Possible Responses:
-     * ok, block, fail_key, fail_server, fail_input_domain,
+     * domain (getDomain()) and adds its status to the result log. Possible
+     * Responses: ok, block, fail_key, fail_server, fail_input_domain,
      * fail_parameter_count, fail_key_low_credits (EasyAPI v0.2)
      *
-     * @deprecated checkDomain does not validate that the API key is
-     * Alphanumeric. See {@link #preformCheckDomain()}.
+     * @deprecated checkDomain now delegates to {@link #preformCheckDomain()}.
      */
     private void checkDomain() {
-        String response = getURLData("http://check.block-disposable-email.com/easyapi/txt/" + getKey() + "/" + getDomain());
-        switch (response) {
-            case "ok":
-                list.add(getTime() + " | ALLOW: " + getDomain(), 0);
-                break;
-            case "block":
-                list.add(getTime() + " | BLOCK: " + getDomain(), 0);
-                break;
-            default:
-                list.add(getTime() + " | FAILURE: " + response, 0);
-                break;
-        }
-    }
-
-    /**
-     *
-     * @return Returns the current Epoch time.
-     */
-    private String getTime() {
-        Calendar cal = Calendar.getInstance();
-        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss");
-        return sdf.format(cal.getTime());
+        preformCheckDomain();
     }
 
     /**
@@ -291,11 +350,7 @@ public class Display extends javax.swing.JFrame {
      * (ptxtKey).
      */
     private String getKey() {
-        String key = "";
-        for (char x : ptxtKey.getPassword()) {
-            key += x;
-        }
-        return key;
+        return new String(ptxtKey.getPassword());
     }
 
     /**
@@ -362,32 +417,73 @@ public class Display extends javax.swing.JFrame {
 
     /**
      * Queries BDEA's EasyAPI (Simple Text Output Method) Checks the supplied
-     * domain (getDomain()) and adds its status to the list. Possible Responses:
-     * ok, block, fail_key, fail_server, fail_input_domain,
+     * domain (getDomain()) and adds its status to the result log. Possible
+     * Responses: ok, block, fail_key, fail_server, fail_input_domain,
      * fail_parameter_count, fail_key_low_credits (EasyAPI v0.2)
      * <p>
-     * preformCheckDomain also validates that the API key is Alphanumeric.
+     * preformCheckDomain also validates that the API key is Alphanumeric. The
+     * query runs in the background and the result is queued for the result
+     * log, which applies it on the event dispatch thread.
      */
     private void preformCheckDomain() {
-        if (StringUtils.isAlphanumeric(getKey())) {
-            String response = getURLData("http://check.block-disposable-email.com/easyapi/txt/" + getKey() + "/" + getDomain());
-            if (response == null) {
-                return;
-            }
-            switch (response) {
-                case "ok":
-                    list.add(getTime() + " | ALLOW: " + getDomain(), 0);
-                    break;
-                case "block":
-                    list.add(getTime() + " | BLOCK: " + getDomain(), 0);
-                    break;
-                default:
-                    list.add(getTime() + " | FAILURE: " + response, 0);
-                    break;
+        BlockDeaClient client = getClient();
+        if (client == null) {
+            return;
+        }
+        final String domain = getDomain();
+        client.checkDomainAsync(domain).whenComplete((verdict, ex) -> {
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                EventQueue.invokeLater(() -> showConnectionError(domain, cause));
+                LOG.log(Level.WARNING, "Unable to check " + domain, cause);
+            } else {
+                verdictToList(domain, verdict);
+                if (verdict == Verdict.FAIL_INPUT_DOMAIN) {
+                    EventQueue.invokeLater(() -> showDomainError(domain));
+                }
             }
-        } else {
-            showBadKeyError();
+        });
+    }
+
+    /**
+     * Adds the verdict for a domain to the top of the result log. May be
+     * called from any thread.
+     *
+     * @since 1.4
+     * @param domain Accepts the domain that was checked.
+     * @param verdict Accepts the verdict for the domain.
+     */
+    private void verdictToList(String domain, Verdict verdict) {
+        results.add(domain, verdict);
+    }
+
+    /**
+     * Asks for a file and writes the rows shown in the result log to it as
+     * CSV. The rows are copied on the event dispatch thread and written in the
+     * background.
+     *
+     * @since 1.4
+     */
+    private void exportResults() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+        chooser.setSelectedFile(new File("bdea-results.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
+        final File file = chooser.getSelectedFile();
+        final List<ResultLogModel.Entry> entries = results.getEntries();
+        executor.execute(() -> {
+            try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                ResultLogModel.writeCsv(entries, out);
+            } catch (IOException ex) {
+                LOG.log(Level.WARNING, "Unable to export results to " + file, ex);
+                EventQueue.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                        "Unable to write " + file + ": " + ex.getMessage(),
+                        "Export Error",
+                        JOptionPane.ERROR_MESSAGE));
+            }
+        });
     }
 
     /**
@@ -408,11 +504,14 @@ public class Display extends javax.swing.JFrame {
         txtDomain = new javax.swing.JTextField();
         ptxtKey = new javax.swing.JPasswordField();
         jSeparator1 = new javax.swing.JSeparator();
-        list = new java.awt.List();
+        scrollResults = new javax.swing.JScrollPane();
+        tblResults = new javax.swing.JTable();
         btnCheckStatus = new javax.swing.JButton();
         tBtnShowKey = new javax.swing.JToggleButton();
         lblManageAccount = new javax.swing.JLabel();
         lblPersonalStats = new javax.swing.JLabel();
+        cmbFilter = new javax.swing.JComboBox<>();
+        btnExport = new javax.swing.JButton();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.EXIT_ON_CLOSE);
 
@@ -428,7 +527,7 @@ public class Display extends javax.swing.JFrame {
         });
 
         btnClrList.setText("Clear List");
-        btnClrList.setToolTipText("Clear the list above");
+        btnClrList.setToolTipText("Clear the results above");
         btnClrList.addActionListener(new java.awt.event.ActionListener() {
             public void actionPerformed(java.awt.event.ActionEvent evt) {
                 btnClrListActionPerformed(evt);
@@ -469,7 +568,10 @@ public class Display extends javax.swing.JFrame {
             }
         });
 
-        list.setFont(new java.awt.Font("Tahoma", 0, 11)); // NOI18N
+        tblResults.setFont(new java.awt.Font("Tahoma", 0, 11)); // NOI18N
+        tblResults.setModel(results);
+        tblResults.setFillsViewportHeight(true);
+        scrollResults.setViewportView(tblResults);
 
         btnCheckStatus.setText("Key ✔");
         btnCheckStatus.setToolTipText("Check status on given API Key.");
@@ -505,6 +607,22 @@ public class Display extends javax.swing.JFrame {
             }
         });
 
+        cmbFilter.setModel(new javax.swing.DefaultComboBoxModel<>(ResultLogModel.Filter.values()));
+        cmbFilter.setToolTipText("Show only some of the results");
+        cmbFilter.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                cmbFilterActionPerformed(evt);
+            }
+        });
+
+        btnExport.setText("Export CSV");
+        btnExport.setToolTipText("Save the results shown above as a CSV file");
+        btnExport.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                btnExportActionPerformed(evt);
+            }
+        });
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(getContentPane());
         getContentPane().setLayout(layout);
         layout.setHorizontalGroup(
@@ -513,7 +631,7 @@ public class Display extends javax.swing.JFrame {
             .addGroup(layout.createSequentialGroup()
                 .addContainerGap()
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
-                    .addComponent(list, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(scrollResults, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                     .addGroup(layout.createSequentialGroup()
                         .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                             .addComponent(jLabel1)
@@ -537,6 +655,10 @@ public class Display extends javax.swing.JFrame {
                     .addGroup(layout.createSequentialGroup()
                         .addComponent(lblManageAccount, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                        .addComponent(cmbFilter, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(btnExport)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                         .addComponent(lblPersonalStats, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)))
                 .addContainerGap())
         );
@@ -545,9 +667,11 @@ public class Display extends javax.swing.JFrame {
             .addGroup(layout.createSequentialGroup()
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(lblManageAccount, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
-                    .addComponent(lblPersonalStats, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                    .addComponent(lblPersonalStats, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(cmbFilter, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(btnExport))
                 .addGap(1, 1, 1)
-                .addComponent(list, javax.swing.GroupLayout.DEFAULT_SIZE, 248, Short.MAX_VALUE)
+                .addComponent(scrollResults, javax.swing.GroupLayout.DEFAULT_SIZE, 248, Short.MAX_VALUE)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(jSeparator1, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
@@ -575,10 +699,10 @@ public class Display extends javax.swing.JFrame {
     }// </editor-fold>//GEN-END:initComponents
     /**
      *
-     * @param evt On button press clear the GUI list.
+     * @param evt On button press clear the result log.
      */
     private void btnClrListActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnClrListActionPerformed
-        list.removeAll();
+        results.clear();
     }//GEN-LAST:event_btnClrListActionPerformed
 
     private void txtDomainKeyReleased(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_txtDomainKeyReleased
@@ -586,6 +710,9 @@ public class Display extends javax.swing.JFrame {
     }//GEN-LAST:event_txtDomainKeyReleased
 
     private void ptxtKeyKeyReleased(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_ptxtKeyKeyReleased
+        if (client != null && !getKey().equals(clientKey)) {
+            closeClient();
+        }
         enableBtn();
     }//GEN-LAST:event_ptxtKeyKeyReleased
 
@@ -624,6 +751,14 @@ public class Display extends javax.swing.JFrame {
         openURL("http://www.block-disposable-email.com/cms/manage/your-personal-dea-statistics/");
     }//GEN-LAST:event_lblPersonalStatsMousePressed
 
+    private void cmbFilterActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cmbFilterActionPerformed
+        results.setFilter((ResultLogModel.Filter) cmbFilter.getSelectedItem());
+    }//GEN-LAST:event_cmbFilterActionPerformed
+
+    private void btnExportActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnExportActionPerformed
+        exportResults();
+    }//GEN-LAST:event_btnExportActionPerformed
+
     /**
      * @param args the command line arguments
      */
@@ -655,17 +790,20 @@ public class Display extends javax.swing.JFrame {
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JButton btnCheckStatus;
     private javax.swing.JButton btnClrList;
+    private javax.swing.JButton btnExport;
     private javax.swing.JButton btnQuery;
     private javax.swing.JButton btnTestBlock;
     private javax.swing.JButton btnTestOk;
+    private javax.swing.JComboBox<ResultLogModel.Filter> cmbFilter;
     private javax.swing.JLabel jLabel1;
     private javax.swing.JLabel jLabel2;
     private javax.swing.JSeparator jSeparator1;
     private javax.swing.JLabel lblManageAccount;
     private javax.swing.JLabel lblPersonalStats;
-    private java.awt.List list;
     private javax.swing.JPasswordField ptxtKey;
+    private javax.swing.JScrollPane scrollResults;
     private javax.swing.JToggleButton tBtnShowKey;
+    private javax.swing.JTable tblResults;
     private javax.swing.JTextField txtDomain;
     // End of variables declaration//GEN-END:variables
 }
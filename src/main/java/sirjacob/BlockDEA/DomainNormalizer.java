@@ -0,0 +1,167 @@
+package sirjacob.BlockDEA;
+
+import java.net.IDN;
+import java.util.Locale;
+
+/**
+ * Turns user input into the canonical domain used for lookups and cache keys,
+ * or rejects it before any credit is spent. Accepted input:
+ * <ul>
+ * <li>a domain ({@code Example.COM.}, {@code example.com:8080/path})</li>
+ * <li>an email address ({@code User@Example.com},
+ * {@code "Name" <user@example.com>}, {@code mailto:user@example.com})</li>
+ * <li>a URL ({@code https://user@www.example.com:443/x?y})</li>
+ * </ul>
+ * The host is extracted, lower cased, stripped of trailing dots and converted
+ * from IDN to punycode. With a {@link PublicSuffixList} it is then collapsed
+ * to its registrable domain ({@code mail.example.co.uk} becomes
+ * {@code example.co.uk}). Input that does not yield a valid host name with at
+ * least two labels, or that is an IP address, is rejected.
+ * <p>
+ * Input that is already canonical is returned as is without allocating.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class DomainNormalizer {
+
+    /**
+     * Normalizer without a public suffix list: host names are kept whole.
+     */
+    public static final DomainNormalizer DEFAULT = new DomainNormalizer(null);
+
+    private static final int MAX_LENGTH = 253;
+    private static final int MAX_LABEL_LENGTH = 63;
+
+    private final PublicSuffixList suffixes;
+
+    /**
+     * @param suffixes Accepts the list used to collapse host names to their
+     * registrable domain, or null to keep host names whole.
+     */
+    public DomainNormalizer(PublicSuffixList suffixes) {
+        this.suffixes = suffixes;
+    }
+
+    /**
+     * @param input Accepts a domain, email address or URL.
+     * @return Returns the canonical domain, or null if the input is malformed.
+     */
+    public String normalize(String input) {
+        if (input == null) {
+            return null;
+        }
+        String host = isValidHost(input) ? input : extractHost(input);
+        if (host == null) {
+            return null;
+        }
+        return suffixes != null ? suffixes.getRegistrableDomain(host) : host;
+    }
+
+    /**
+     * @return Returns the public suffix list, or null if none is used.
+     */
+    public PublicSuffixList getPublicSuffixList() {
+        return suffixes;
+    }
+
+    /**
+     * Slow path: finds the host in an email address, URL or decorated domain
+     * and canonicalizes it.
+     */
+    private static String extractHost(String input) {
+        String s = input.trim();
+        int lt = s.lastIndexOf('<');
+        if (lt >= 0 && s.endsWith(">")) {
+            s = s.substring(lt + 1, s.length() - 1).trim();
+        }
+        if (s.regionMatches(true, 0, "mailto:", 0, 7)) {
+            s = s.substring(7);
+        }
+        int scheme = s.indexOf("://");
+        if (scheme >= 0) {
+            s = s.substring(scheme + 3);
+        }
+        //Drop path, query and fragment; then user info (or the local part of
+        //an email address); then the port.
+        int end = s.length();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        s = s.substring(0, end);
+        int at = s.lastIndexOf('@');
+        if (at >= 0) {
+            s = s.substring(at + 1);
+        }
+        if (s.startsWith("[")) {
+            //IPv6 literal.
+            return null;
+        }
+        int colon = s.indexOf(':');
+        if (colon >= 0) {
+            s = s.substring(0, colon);
+        }
+        end = s.length();
+        while (end > 0 && s.charAt(end - 1) == '.') {
+            end--;
+        }
+        s = s.substring(0, end).toLowerCase(Locale.ROOT);
+        if (!isAscii(s)) {
+            try {
+                s = IDN.toASCII(s, IDN.ALLOW_UNASSIGNED).toLowerCase(Locale.ROOT);
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+        }
+        return isValidHost(s) ? s : null;
+    }
+
+    /**
+     * Checks that a name is canonical: lower case letters, digits and hyphens
+     * in labels of 1 to 63 characters that neither start nor end with a
+     * hyphen, at least two labels, at most 253 characters, and a last label
+     * that is not numeric (which rules out IPv4 addresses).
+     */
+    private static boolean isValidHost(String s) {
+        int length = s.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return false;
+        }
+        int labelStart = 0;
+        int labels = 0;
+        boolean numericLabel = true;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? s.charAt(i) : '.';
+            if (c == '.') {
+                int labelLength = i - labelStart;
+                if (labelLength == 0 || labelLength > MAX_LABEL_LENGTH
+                        || s.charAt(labelStart) == '-' || s.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labels++;
+                if (i < length) {
+                    labelStart = i + 1;
+                    numericLabel = true;
+                }
+            } else if (c >= 'a' && c <= 'z' || c == '-') {
+                numericLabel = false;
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return labels >= 2 && !numericLabel;
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
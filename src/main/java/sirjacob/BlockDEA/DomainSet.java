@@ -0,0 +1,213 @@
+package sirjacob.BlockDEA;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable set of domain rules. A plain entry ({@code example.com}) matches
+ * only that domain; an entry starting with {@code .} or {@code *.}
+ * ({@code .example.com}) matches the domain and every subdomain under it.
+ * <p>
+ * Entries are normalized with the {@link DomainNormalizer} the client looks
+ * domains up with, so they match the lookup keys: IDN entries are converted
+ * to punycode, and with a {@link PublicSuffixList} an entry for a subdomain
+ * applies to its whole registrable domain. Suffix entries the normalizer
+ * rejects, such as a bare public suffix ({@code .tk}), are kept as written
+ * (lower cased and converted to punycode).
+ * <p>
+ * Entries are stored with their labels reversed ({@code com.example}) in two
+ * sorted arrays, so an exact match is one binary search and a suffix match is
+ * one binary search per label of the domain being checked.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class DomainSet {
+
+    /**
+     * Set without any entries.
+     */
+    public static final DomainSet EMPTY = new DomainSet(new String[0], new String[0]);
+
+    private final String[] exact;
+    private final String[] suffixes;
+
+    private DomainSet(String[] exact, String[] suffixes) {
+        this.exact = exact;
+        this.suffixes = suffixes;
+    }
+
+    /**
+     * Builds a set from rule lines using {@link DomainNormalizer#DEFAULT}.
+     *
+     * @param lines Accepts the rule lines.
+     * @return Returns the set of rules.
+     * @see #of(Iterable, DomainNormalizer)
+     */
+    public static DomainSet of(Iterable<String> lines) {
+        return of(lines, DomainNormalizer.DEFAULT);
+    }
+
+    /**
+     * Builds a set from rule lines. Blank lines and lines starting with # are
+     * ignored, as is anything after the first whitespace on a line. Exact
+     * entries the normalizer rejects are ignored.
+     *
+     * @param lines Accepts the rule lines.
+     * @param normalizer Accepts the normalizer of the client the set is used
+     * with.
+     * @return Returns the set of rules.
+     */
+    public static DomainSet of(Iterable<String> lines, DomainNormalizer normalizer) {
+        List<String> exact = new ArrayList<>();
+        List<String> suffixes = new ArrayList<>();
+        for (String line : lines) {
+            String rule = line.trim();
+            int space = indexOfWhitespace(rule);
+            if (space >= 0) {
+                rule = rule.substring(0, space);
+            }
+            if (rule.isEmpty() || rule.charAt(0) == '#') {
+                continue;
+            }
+            if (rule.startsWith("*.") || rule.charAt(0) == '.') {
+                String suffix = rule.substring(rule.charAt(0) == '.' ? 1 : 2);
+                String domain = normalizer.normalize(suffix);
+                if (domain == null) {
+                    domain = canonical(suffix);
+                }
+                if (domain != null) {
+                    suffixes.add(reverse(domain));
+                }
+            } else {
+                String domain = normalizer.normalize(rule);
+                if (domain != null) {
+                    exact.add(reverse(domain));
+                }
+            }
+        }
+        return new DomainSet(sorted(exact), sorted(suffixes));
+    }
+
+    /**
+     * @param file Accepts a rule file, one rule per line (UTF-8).
+     * @return Returns the set of rules in the file, normalized with
+     * {@link DomainNormalizer#DEFAULT}.
+     * @throws IOException If the file could not be read.
+     */
+    public static DomainSet load(Path file) throws IOException {
+        return load(file, DomainNormalizer.DEFAULT);
+    }
+
+    /**
+     * @param file Accepts a rule file, one rule per line (UTF-8).
+     * @param normalizer Accepts the normalizer of the client the set is used
+     * with.
+     * @return Returns the set of rules in the file.
+     * @throws IOException If the file could not be read.
+     */
+    public static DomainSet load(Path file, DomainNormalizer normalizer) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return of(lines, normalizer);
+    }
+
+    /**
+     * @param domain Accepts a normalized domain.
+     * @return Returns true if the domain matches an exact entry, or is (or is
+     * under) a suffix entry.
+     */
+    public boolean contains(String domain) {
+        if (exact.length == 0 && suffixes.length == 0) {
+            return false;
+        }
+        String reversed = reverse(domain);
+        if (Arrays.binarySearch(exact, reversed) >= 0) {
+            return true;
+        }
+        if (suffixes.length == 0) {
+            return false;
+        }
+        for (int i = reversed.indexOf('.'); i >= 0; i = reversed.indexOf('.', i + 1)) {
+            if (Arrays.binarySearch(suffixes, reversed.substring(0, i)) >= 0) {
+                return true;
+            }
+        }
+        return Arrays.binarySearch(suffixes, reversed) >= 0;
+    }
+
+    /**
+     * @return Returns the number of rules in the set.
+     */
+    public int size() {
+        return exact.length + suffixes.length;
+    }
+
+    /**
+     * Reverses the labels of a domain: mail.example.com becomes
+     * com.example.mail.
+     */
+    static String reverse(String domain) {
+        StringBuilder sb = new StringBuilder(domain.length());
+        int end = domain.length();
+        for (int i = end - 1; i >= -1; i--) {
+            if (i == -1 || domain.charAt(i) == '.') {
+                if (sb.length() > 0) {
+                    sb.append('.');
+                }
+                sb.append(domain, i + 1, end);
+                end = i;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Lower cases a suffix entry, strips trailing dots and converts it to
+     * punycode.
+     *
+     * @return Returns the entry, or null if it is not a valid name.
+     */
+    private static String canonical(String suffix) {
+        int end = suffix.length();
+        while (end > 0 && suffix.charAt(end - 1) == '.') {
+            end--;
+        }
+        if (end == 0) {
+            return null;
+        }
+        try {
+            return IDN.toASCII(suffix.substring(0, end), IDN.ALLOW_UNASSIGNED).toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static String[] sorted(List<String> entries) {
+        String[] array = entries.toArray(new String[entries.size()]);
+        Arrays.sort(array);
+        return array;
+    }
+
+    private static int indexOfWhitespace(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.isWhitespace(s.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,99 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+
+/**
+ * Asks BDEA's EasyAPI (Simple Text Output Method). Every call makes one
+ * request, which uses one credit unless the domain is one of the free test
+ * domains; there is no caching or retrying at this level.
+ * <p>
+ * Once a {@link BlockDeaClient} is built with the provider, alone or inside a
+ * {@link CompositeVerdictProvider}, every request waits for the client's rate
+ * limiter and is counted in its EasyAPI metrics, so answers from cheaper
+ * providers asked first cost neither tokens nor requests. A provider belongs
+ * to at most one client.
+ * <p>
+ * Responses are parsed from a per-thread buffer, so a call does not allocate
+ * a string for the answer.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class EasyApiProvider implements VerdictProvider {
+
+    private static final ThreadLocal<ResponseBuffer> RESPONSE_BUFFER = ThreadLocal.withInitial(ResponseBuffer::new);
+
+    private final String urlPrefix;
+    private final HttpTransport transport;
+    private volatile BlockDeaClient client;
+
+    /**
+     * @param apiKey Accepts the BDEA API key used for every request.
+     * @param transport Accepts the transport used for requests; it is not
+     * closed by the provider.
+     */
+    public EasyApiProvider(String apiKey, HttpTransport transport) {
+        this(apiKey, transport, BlockDeaClient.EASY_API_URL);
+    }
+
+    /**
+     * @param apiKey Accepts the BDEA API key used for every request.
+     * @param transport Accepts the transport used for requests; it is not
+     * closed by the provider.
+     * @param easyApiUrl Accepts the EasyAPI base URL, ending with a slash.
+     */
+    public EasyApiProvider(String apiKey, HttpTransport transport, String easyApiUrl) {
+        if (transport == null) {
+            throw new NullPointerException("transport");
+        }
+        this.urlPrefix = easyApiUrl + apiKey + "/";
+        this.transport = transport;
+    }
+
+    /**
+     * @param domain Accepts a normalized domain.
+     * @return Returns the verdict BDEA answered with, {@link Verdict#UNKNOWN}
+     * if the response was not understood, or
+     * {@link Verdict#FAIL_KEY_LOW_CREDITS} without a request if the client's
+     * rate limiter knows the credits are used up; never null.
+     * @throws IOException If BDEA could not be reached.
+     */
+    @Override
+    public Verdict getVerdict(String domain) throws IOException {
+        BlockDeaClient owner = client;
+        ResponseBuffer response = RESPONSE_BUFFER.get();
+        String url = urlPrefix.concat(domain);
+        if (owner == null) {
+            transport.get(url, response);
+            return Verdict.fromResponse(response.array(), 0, response.length());
+        }
+        if (!owner.acquirePermit()) {
+            return Verdict.FAIL_KEY_LOW_CREDITS;
+        }
+        owner.request(MetricsListener.Endpoint.EASY_API, transport, url, response);
+        Verdict verdict = Verdict.fromResponse(response.array(), 0, response.length());
+        owner.reportVerdict(domain, verdict);
+        return verdict;
+    }
+
+    /**
+     * @return Returns true: the answers come from BDEA.
+     */
+    @Override
+    public boolean isAuthoritative() {
+        return true;
+    }
+
+    /**
+     * Accounts this provider's requests to a client.
+     *
+     * @throws IllegalStateException If the provider already belongs to
+     * another client.
+     */
+    synchronized void bind(BlockDeaClient owner) {
+        if (client != null && client != owner) {
+            throw new IllegalStateException("EasyApiProvider is already used by another BlockDeaClient");
+        }
+        client = owner;
+    }
+}
@@ -0,0 +1,123 @@
+package sirjacob.BlockDEA;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Answers from verdicts loaded into memory from a file, without any request.
+ * Lines are {@code domain,verdict}, where the verdict is ALLOW or BLOCK (or
+ * the EasyAPI responses ok and block), so the output of {@link BulkChecker}
+ * and {@link Rescreener} can be loaded as is. Failure rows, blank lines,
+ * lines starting with # and unparsable lines are skipped; domains are
+ * normalized, so email addresses work too. Load the file with the
+ * {@link DomainNormalizer} of the client the provider is used with, so its
+ * domains match the client's lookup keys; with a {@link PublicSuffixList},
+ * rows of several subdomains of one registrable domain collapse into one,
+ * and the last row wins.
+ * <p>
+ * Useful to load-test a client at full speed without spending credits, or
+ * ahead of {@link EasyApiProvider} in a {@link CompositeVerdictProvider}.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class FileVerdictProvider implements VerdictProvider {
+
+    private final Map<String, Verdict> verdicts;
+    private final Verdict fallback;
+
+    /**
+     * @param verdicts Accepts verdicts keyed on the normalized domain; the
+     * map is copied.
+     * @param fallback Accepts the verdict for domains not in the map, or null
+     * to leave them unanswered.
+     */
+    public FileVerdictProvider(Map<String, Verdict> verdicts, Verdict fallback) {
+        this.verdicts = new HashMap<>(verdicts);
+        this.fallback = fallback;
+    }
+
+    /**
+     * @param file Accepts a verdict file (UTF-8), normalized with
+     * {@link DomainNormalizer#DEFAULT}.
+     * @return Returns a provider that leaves domains not in the file
+     * unanswered.
+     * @throws IOException If the file could not be read.
+     */
+    public static FileVerdictProvider load(Path file) throws IOException {
+        return load(file, null);
+    }
+
+    /**
+     * @param file Accepts a verdict file (UTF-8), normalized with
+     * {@link DomainNormalizer#DEFAULT}.
+     * @param fallback Accepts the verdict for domains not in the file, or
+     * null to leave them unanswered.
+     * @return Returns the provider.
+     * @throws IOException If the file could not be read.
+     * @see #load(Path, Verdict, DomainNormalizer)
+     */
+    public static FileVerdictProvider load(Path file, Verdict fallback) throws IOException {
+        return load(file, fallback, DomainNormalizer.DEFAULT);
+    }
+
+    /**
+     * @param file Accepts a verdict file (UTF-8).
+     * @param fallback Accepts the verdict for domains not in the file, or
+     * null to leave them unanswered; a client using this provider on its own
+     * needs one, e.g. {@link Verdict#ALLOW} for a load test.
+     * @param normalizer Accepts the normalizer of the client the provider is
+     * used with.
+     * @return Returns the provider.
+     * @throws IOException If the file could not be read.
+     */
+    public static FileVerdictProvider load(Path file, Verdict fallback, DomainNormalizer normalizer) throws IOException {
+        Map<String, Verdict> verdicts = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comma = line.indexOf(',');
+                if (comma <= 0 || line.charAt(0) == '#') {
+                    continue;
+                }
+                Verdict verdict = parse(line.substring(comma + 1).trim());
+                String domain = normalizer.normalize(line.substring(0, comma));
+                if (verdict != null && domain != null) {
+                    verdicts.put(domain, verdict);
+                }
+            }
+        }
+        return new FileVerdictProvider(verdicts, fallback);
+    }
+
+    @Override
+    public Verdict getVerdict(String domain) {
+        Verdict verdict = verdicts.get(domain);
+        return verdict != null ? verdict : fallback;
+    }
+
+    /**
+     * @return Returns the number of domains with a verdict.
+     */
+    public int size() {
+        return verdicts.size();
+    }
+
+    private static Verdict parse(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "allow":
+            case "ok":
+                return Verdict.ALLOW;
+            case "block":
+                return Verdict.BLOCK;
+            default:
+                return null;
+        }
+    }
+}
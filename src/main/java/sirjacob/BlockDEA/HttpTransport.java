@@ -0,0 +1,39 @@
+package sirjacob.BlockDEA;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Transport used by {@link BlockDeaClient} to talk to BDEA. Implementations
+ * must be thread-safe, since a single transport is shared by every domain and
+ * status check made through a client.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public interface HttpTransport extends Closeable {
+
+    /**
+     * Performs a GET request. Implementations must always release the
+     * underlying stream, whether or not the request succeeds.
+     *
+     * @param url Accepts the full request URL.
+     * @return Returns the response body.
+     * @throws IOException If the request failed or timed out.
+     */
+    String get(String url) throws IOException;
+
+    /**
+     * Performs a GET request, reading the body into a reusable buffer instead
+     * of a new string. The default implementation copies the result of
+     * {@link #get(String)}; implementations should override it to read
+     * directly into the buffer.
+     *
+     * @param url Accepts the full request URL.
+     * @param response Accepts the buffer to fill; it is cleared first.
+     * @throws IOException If the request failed or timed out.
+     */
+    default void get(String url, ResponseBuffer response) throws IOException {
+        response.set(get(url));
+    }
+}
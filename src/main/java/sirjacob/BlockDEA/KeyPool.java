@@ -0,0 +1,414 @@
+package sirjacob.BlockDEA;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Spreads lookups across several API keys, each with its own
+ * {@link BlockDeaClient}. A key is picked at random for every lookup,
+ * weighted by its remaining credits, so keys run out at about the same time
+ * and total throughput grows with the number of keys.
+ * <p>
+ * A key is taken out of rotation when its status is not active or its
+ * credits are exhausted, or when the EasyAPI answers fail_key or
+ * fail_key_low_credits for it; the lookup is then repeated with another key.
+ * A key taken out because of an EasyAPI answer is re-admitted once a newer
+ * key status says it is usable again, so the clients should refresh their
+ * status in the background ({@link BlockDeaClient.Builder#pollStatus()}).
+ * When no key is usable, lookups are answered without a request: with
+ * fail_key if every key's status says it is not active, otherwise with
+ * fail_key_low_credits.
+ * <p>
+ * Clients should share one {@link VerdictCache}: cached verdicts are looked
+ * up through the first client only, and lookups of the same domain are
+ * coalesced across keys.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class KeyPool implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(KeyPool.class.getName());
+
+    private final Member[] members;
+    private final List<BlockDeaClient> clients;
+    private final List<Closeable> owned;
+    private final ConcurrentMap<String, CompletableFuture<Verdict>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong failovers = new AtomicLong();
+
+    /**
+     * Creates a pool of clients built by the caller. The clients are not
+     * closed with the pool.
+     *
+     * @param clients Accepts one client per key.
+     * @throws IllegalArgumentException If no client is supplied.
+     */
+    public KeyPool(Collection<BlockDeaClient> clients) {
+        this(clients, Collections.<Closeable>emptyList());
+    }
+
+    private KeyPool(Collection<BlockDeaClient> clients, List<Closeable> owned) {
+        if (clients.isEmpty()) {
+            throw new IllegalArgumentException("Key pool needs at least one client");
+        }
+        this.clients = Collections.unmodifiableList(new ArrayList<>(clients));
+        this.members = new Member[this.clients.size()];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = new Member(this.clients.get(i));
+        }
+        this.owned = owned;
+    }
+
+    /**
+     * Creates a pool whose clients share one transport, executor and cache
+     * and refresh their key status in the background.
+     *
+     * @param apiKeys Accepts the BDEA API keys.
+     * @return Returns the pool; closing it closes the clients.
+     * @throws IllegalArgumentException If no key is supplied or a key is not
+     * alphanumeric.
+     */
+    public static KeyPool create(Collection<String> apiKeys) {
+        return create(apiKeys, builder -> {
+        });
+    }
+
+    /**
+     * Creates a pool whose clients share one transport, executor and cache
+     * and refresh their key status in the background.
+     *
+     * @param apiKeys Accepts the BDEA API keys.
+     * @param configure Accepts further configuration applied to every
+     * client's builder, e.g. a rate limiter (one instance per key).
+     * @return Returns the pool; closing it closes the clients.
+     * @throws IllegalArgumentException If no key is supplied or a key is not
+     * alphanumeric.
+     */
+    public static KeyPool create(Collection<String> apiKeys, Consumer<BlockDeaClient.Builder> configure) {
+        if (apiKeys.isEmpty()) {
+            throw new IllegalArgumentException("Key pool needs at least one key");
+        }
+        List<Closeable> owned = new ArrayList<>();
+        UrlConnectionTransport transport = new UrlConnectionTransport();
+        ExecutorService executor = LookupExecutors.newDefaultExecutor(UrlConnectionTransport.DEFAULT_MAX_CONNECTIONS);
+        VerdictCache cache = new VerdictCache();
+        List<BlockDeaClient> clients = new ArrayList<>();
+        try {
+            for (String apiKey : apiKeys) {
+                BlockDeaClient.Builder builder = BlockDeaClient.builder(apiKey)
+                        .transport(transport).executor(executor).cache(cache).pollStatus();
+                configure.accept(builder);
+                BlockDeaClient client = builder.build();
+                clients.add(client);
+                owned.add(client);
+            }
+        } catch (RuntimeException ex) {
+            closeQuietly(owned);
+            executor.shutdown();
+            closeQuietly(Collections.<Closeable>singletonList(transport));
+            throw ex;
+        }
+        owned.add(executor::shutdown);
+        owned.add(transport);
+        return new KeyPool(clients, owned);
+    }
+
+    /**
+     * Checks the supplied domain with one of the pool's keys; see
+     * {@link BlockDeaClient#checkDomain(String)}.
+     *
+     * @param domain Accepts a domain, email address or URL.
+     * @return Returns the verdict for the domain.
+     * @throws IOException If BDEA could not be reached.
+     */
+    public Verdict checkDomain(String domain) throws IOException {
+        try {
+            return checkDomainAsync(domain).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while checking " + domain);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Asynchronous version of {@link #checkDomain(String)}.
+     *
+     * @param domain Accepts a domain, email address or URL.
+     * @return Returns a future completed with the verdict, or completed
+     * exceptionally with an {@link IOException} if BDEA could not be reached.
+     */
+    public CompletableFuture<Verdict> checkDomainAsync(String domain) {
+        BlockDeaClient first = members[0].client;
+        String key = first.normalize(domain);
+        if (key == null) {
+            return CompletableFuture.completedFuture(Verdict.FAIL_INPUT_DOMAIN);
+        }
+        Verdict local = first.checkLocal(key);
+        if (local != null) {
+            return CompletableFuture.completedFuture(local);
+        }
+        CompletableFuture<Verdict> future = new CompletableFuture<>();
+        CompletableFuture<Verdict> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing.thenApply(verdict -> verdict);
+        }
+        future.whenComplete((verdict, ex) -> inFlight.remove(key, future));
+        attempt(key, new boolean[members.length], future);
+        return future.thenApply(verdict -> verdict);
+    }
+
+    /**
+     * @return Returns the clients, one per key, in the order supplied.
+     */
+    public List<BlockDeaClient> getClients() {
+        return clients;
+    }
+
+    /**
+     * @return Returns the clients whose keys are currently in rotation.
+     */
+    public List<BlockDeaClient> getAvailableClients() {
+        List<BlockDeaClient> available = new ArrayList<>();
+        for (Member member : members) {
+            if (member.unavailability() == null) {
+                available.add(member.client);
+            }
+        }
+        return available;
+    }
+
+    /**
+     * @return Returns the sum of the remaining credits of all keys, as far as
+     * known.
+     */
+    public long getRemainingCredits() {
+        long total = 0;
+        for (Member member : members) {
+            total += Math.max(0, member.credits());
+        }
+        return total;
+    }
+
+    /**
+     * @return Returns the number of lookups repeated with another key after
+     * a key was taken out of rotation.
+     */
+    public long getFailoverCount() {
+        return failovers.get();
+    }
+
+    /**
+     * Checks the status of every key now, which re-admits keys that are
+     * usable again. Failures are logged.
+     */
+    public void refreshStatus() {
+        for (Member member : members) {
+            try {
+                member.client.checkStatus();
+            } catch (IOException ex) {
+                LOG.log(Level.WARNING, "Unable to refresh key status of " + member.client.getKeyEnding(), ex);
+            }
+        }
+    }
+
+    /**
+     * Closes the clients, transport and executor if the pool created them.
+     * Clients passed to the constructor are left open for their owner.
+     *
+     * @throws IOException If a client or the transport could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = closeQuietly(owned);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Looks the domain up with a key that has not been tried for it yet, and
+     * moves on to the next key if this one turns out to be unusable.
+     */
+    private void attempt(final String key, final boolean[] tried, final CompletableFuture<Verdict> future) {
+        final int index = pick(tried);
+        if (index < 0) {
+            future.complete(unavailableVerdict());
+            return;
+        }
+        tried[index] = true;
+        final Member member = members[index];
+        member.client.lookupAsync(key).whenComplete((verdict, ex) -> {
+            if (ex != null) {
+                future.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+            } else if (verdict == Verdict.FAIL_KEY || verdict == Verdict.FAIL_KEY_LOW_CREDITS) {
+                member.suspend(verdict);
+                failovers.incrementAndGet();
+                attempt(key, tried, future);
+            } else {
+                future.complete(verdict);
+            }
+        });
+    }
+
+    /**
+     * Picks an available, untried key at random, weighted by its remaining
+     * credits. Keys whose credits are not known yet weigh as much as the
+     * average known key.
+     *
+     * @return Returns the index of the key, or -1 if there is none.
+     */
+    private int pick(boolean[] tried) {
+        long[] weights = new long[members.length];
+        long known = 0;
+        int knownCount = 0;
+        boolean any = false;
+        for (int i = 0; i < members.length; i++) {
+            if (tried[i] || members[i].unavailability() != null) {
+                continue;
+            }
+            any = true;
+            long credits = members[i].credits();
+            if (credits < 0) {
+                weights[i] = -1;
+            } else {
+                //An estimate of zero still gets a minimal share until the
+                //key's status says it is exhausted.
+                weights[i] = Math.max(1, credits);
+                known += weights[i];
+                knownCount++;
+            }
+        }
+        if (!any) {
+            return -1;
+        }
+        long unknownWeight = knownCount > 0 ? known / knownCount : 1;
+        long total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 0) {
+                weights[i] = unknownWeight;
+            }
+            total += weights[i];
+        }
+        long point = ThreadLocalRandom.current().nextLong(total);
+        for (int i = 0; i < weights.length; i++) {
+            point -= weights[i];
+            if (point < 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Returns fail_key if every key is unusable because of its key
+     * status, otherwise fail_key_low_credits.
+     */
+    private Verdict unavailableVerdict() {
+        for (Member member : members) {
+            if (member.unavailability() != Verdict.FAIL_KEY) {
+                return Verdict.FAIL_KEY_LOW_CREDITS;
+            }
+        }
+        return Verdict.FAIL_KEY;
+    }
+
+    private static IOException closeQuietly(List<Closeable> closeables) {
+        IOException failure = null;
+        for (Closeable closeable : closeables) {
+            try {
+                closeable.close();
+            } catch (IOException ex) {
+                if (failure == null) {
+                    failure = ex;
+                } else {
+                    failure.addSuppressed(ex);
+                }
+            }
+        }
+        return failure;
+    }
+
+    /**
+     * A key of the pool and, if the EasyAPI said it is unusable, when and
+     * with what verdict.
+     */
+    private static final class Member {
+
+        private final BlockDeaClient client;
+        private volatile long suspendedAt;
+        private volatile Verdict suspendedWith;
+
+        private Member(BlockDeaClient client) {
+            this.client = client;
+        }
+
+        private void suspend(Verdict verdict) {
+            suspendedWith = verdict;
+            suspendedAt = System.currentTimeMillis();
+            LOG.log(Level.WARNING, "Key ending in {0} answered {1}, taking it out of rotation",
+                    new Object[]{client.getKeyEnding(), verdict.getResponse()});
+        }
+
+        /**
+         * A key is usable unless its latest status says otherwise, or it was
+         * suspended and no status has been received since.
+         *
+         * @return Returns null if the key is usable, otherwise fail_key or
+         * fail_key_low_credits.
+         */
+        private Verdict unavailability() {
+            KeyStatusPoller poller = client.getStatusPoller();
+            KeyStatus status = poller.getStatus();
+            if (status != null) {
+                if (!status.isActive()) {
+                    return Verdict.FAIL_KEY;
+                }
+                if ("exhausted".equals(status.getCommercialCreditStatus()) || status.getCredits() == 0) {
+                    return Verdict.FAIL_KEY_LOW_CREDITS;
+                }
+            }
+            long suspended = suspendedAt;
+            if (suspended != 0 && poller.getLastUpdated() <= suspended) {
+                return suspendedWith;
+            }
+            return null;
+        }
+
+        /**
+         * @return Returns the estimated remaining credits, or -1 if unknown.
+         */
+        private long credits() {
+            CreditRateLimiter limiter = client.getRateLimiter();
+            if (limiter != null && limiter.getRemainingCredits() >= 0) {
+                return limiter.getRemainingCredits();
+            }
+            KeyStatus status = client.getStatusPoller().getStatus();
+            return status != null && status.getCredits() >= 0 ? status.getCredits() : -1;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package sirjacob.BlockDEA;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Immutable snapshot of an API key's status as reported by BDEA's Status API.
+ * Field descriptions provided by BDEA.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class KeyStatus {
+
+    /**
+     * Credits reported when the Status API response did not include them.
+     */
+    public static final long UNKNOWN_CREDITS = -1;
+
+    private final String requestStatus;
+    private final String apiKeyStatus;
+    private final String serverTime;
+    private final double version;
+    private final long credits;
+    private final String creditsTime;
+    private final String commercialCreditStatus;
+    private final double commercialCreditPercent;
+
+    /**
+     * @param requestStatus Describes if the server succeeded or found any
+     * problems.
+     * @param apiKeyStatus The simple answer if you should block or accept a
+     * domain.
+     * @param serverTime The local time of the server in the moment of your
+     * request.
+     * @param version The current version of the service.
+     * @param credits The number of remaining credits, or
+     * {@link #UNKNOWN_CREDITS}.
+     * @param creditsTime This timestamp shows you when the credits of your
+     * account have been recalculated.
+     * @param commercialCreditStatus This attribute indicates the status of
+     * remaining credits.
+     * @param commercialCreditPercent Remaining credits in percent.
+     */
+    public KeyStatus(String requestStatus, String apiKeyStatus, String serverTime, double version, long credits, String creditsTime, String commercialCreditStatus, double commercialCreditPercent) {
+        this.requestStatus = requestStatus;
+        this.apiKeyStatus = apiKeyStatus;
+        this.serverTime = serverTime;
+        this.version = version;
+        this.credits = credits;
+        this.creditsTime = creditsTime;
+        this.commercialCreditStatus = commercialCreditStatus;
+        this.commercialCreditPercent = commercialCreditPercent;
+    }
+
+    /**
+     * Parses the JSON document returned by the Status API.
+     *
+     * @param json Accepts the Status API response.
+     * @return Returns the parsed key status.
+     * @throws ParseException If the response is not a JSON object.
+     */
+    public static KeyStatus parse(String json) throws ParseException {
+        if (json == null) {
+            throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN, null);
+        }
+        Object obj = new JSONParser().parse(json);
+        if (!(obj instanceof JSONObject)) {
+            throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN, obj);
+        }
+        JSONObject jo = (JSONObject) obj;
+        double v = 0;
+        Object temp_version = jo.get("version");
+        if (temp_version != null) {
+            v = Double.parseDouble(String.valueOf(temp_version));
+        }
+        long credits = UNKNOWN_CREDITS;
+        Object temp_credits = jo.get("credits");
+        if (temp_credits != null) {
+            credits = Long.parseLong(String.valueOf(temp_credits));
+        }
+        double ccsp = 0;
+        Object temp_commercial_credit_status_percent = jo.get("commercial_credit_status_percent");
+        if (temp_commercial_credit_status_percent != null) {
+            ccsp = Double.parseDouble(String.valueOf(temp_commercial_credit_status_percent));
+        }
+        return new KeyStatus((String) jo.get("request_status"),
+                (String) jo.get("apikeystatus"),
+                (String) jo.get("servertime"),
+                v,
+                credits,
+                (String) jo.get("credits_time"),
+                (String) jo.get("commercial_credit_status"),
+                ccsp);
+    }
+
+    /**
+     * @return Returns true if both the request status is ok and the API key
+     * status is active. If not there is no reason to trust the other values.
+     */
+    public boolean isActive() {
+        return "ok".equals(requestStatus) && "active".equals(apiKeyStatus);
+    }
+
+    /**
+     * @return Returns true if the Status API version is the same as
+     * {@link BlockDeaClient#SUPPORTED_STATUS_API_VERSION}.
+     */
+    public boolean isSupportedVersion() {
+        return version == BlockDeaClient.SUPPORTED_STATUS_API_VERSION;
+    }
+
+    public String getRequestStatus() {
+        return requestStatus;
+    }
+
+    public String getApiKeyStatus() {
+        return apiKeyStatus;
+    }
+
+    public String getServerTime() {
+        return serverTime;
+    }
+
+    public double getVersion() {
+        return version;
+    }
+
+    /**
+     * @return Returns the number of remaining credits, or
+     * {@link #UNKNOWN_CREDITS} if the response did not include them.
+     */
+    public long getCredits() {
+        return credits;
+    }
+
+    public String getCreditsTime() {
+        return creditsTime;
+    }
+
+    /**
+     * @return Returns good, low, exhausted or null if BDEA did not report it.
+     */
+    public String getCommercialCreditStatus() {
+        return commercialCreditStatus;
+    }
+
+    public double getCommercialCreditPercent() {
+        return commercialCreditPercent;
+    }
+
+    @Override
+    public String toString() {
+        return "KeyStatus{requestStatus=" + requestStatus + ", apiKeyStatus=" + apiKeyStatus
+                + ", serverTime=" + serverTime + ", version=" + version + ", credits=" + credits
+                + ", creditsTime=" + creditsTime + ", commercialCreditStatus=" + commercialCreditStatus
+                + ", commercialCreditPercent=" + commercialCreditPercent + "}";
+    }
+}
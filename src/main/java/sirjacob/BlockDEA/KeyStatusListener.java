@@ -0,0 +1,25 @@
+package sirjacob.BlockDEA;
+
+/**
+ * Receives key status transitions from a {@link KeyStatusPoller}: the first
+ * status, and every later status whose request status, key status, commercial
+ * credit status (good, low, exhausted) or API version differs from the one
+ * before. Statuses that only differ in credits or times are not reported.
+ * <p>
+ * Transitions are delivered on the thread that received the status, usually
+ * the poller's. Exceptions thrown by a listener are logged and otherwise
+ * ignored.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+@FunctionalInterface
+public interface KeyStatusListener {
+
+    /**
+     * @param previous Accepts the status before the transition, or null if
+     * this is the first status received.
+     * @param current Accepts the new status.
+     */
+    void onKeyStatusChange(KeyStatus previous, KeyStatus current);
+}
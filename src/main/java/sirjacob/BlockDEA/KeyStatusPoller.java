@@ -0,0 +1,215 @@
+package sirjacob.BlockDEA;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the latest {@link KeyStatus} of a {@link BlockDeaClient}'s API key.
+ * Every status the client receives, whether from the background refresh or
+ * from {@link BlockDeaClient#checkStatus()}, replaces the snapshot
+ * atomically, so {@link #getStatus()} is a lock-free read that never calls
+ * the Status API. {@link KeyStatusListener}s are told about transitions such
+ * as good to low to exhausted, a key that stops being active, or a new API
+ * version.
+ * <p>
+ * Each client owns one poller; see
+ * {@link BlockDeaClient.Builder#pollStatus()} and
+ * {@link BlockDeaClient.Builder#statusRefreshInterval(long)} for when it
+ * refreshes in the background.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class KeyStatusPoller implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(KeyStatusPoller.class.getName());
+
+    private final BlockDeaClient client;
+    private final long interval;
+    private final List<KeyStatusListener> listeners;
+    private final AtomicReference<Sample> snapshot = new AtomicReference<>();
+    private final ScheduledExecutorService scheduler;
+    private volatile IOException lastFailure;
+
+    /**
+     * @param client Accepts the client whose key is polled.
+     * @param interval Accepts the time between background refreshes in
+     * milliseconds, or 0 to only keep statuses the client receives otherwise.
+     * @param listeners Accepts the initial transition listeners.
+     */
+    KeyStatusPoller(BlockDeaClient client, long interval, Collection<KeyStatusListener> listeners) {
+        this.client = client;
+        this.interval = interval;
+        this.listeners = new CopyOnWriteArrayList<>(listeners);
+        if (interval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "bdea-status-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Schedules the background refresh, starting immediately. Called once
+     * the client is fully constructed.
+     */
+    void start() {
+        if (scheduler != null) {
+            scheduler.scheduleWithFixedDelay(this::poll, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return Returns the latest key status, or null if none has been
+     * received yet.
+     */
+    public KeyStatus getStatus() {
+        Sample sample = snapshot.get();
+        return sample != null ? sample.status : null;
+    }
+
+    /**
+     * @return Returns when the latest key status was received, in
+     * milliseconds since the epoch, or 0 if none has been received yet.
+     */
+    public long getLastUpdated() {
+        Sample sample = snapshot.get();
+        return sample != null ? sample.time : 0;
+    }
+
+    /**
+     * @return Returns the age of the latest key status in milliseconds, or -1
+     * if none has been received yet.
+     */
+    public long getAge() {
+        Sample sample = snapshot.get();
+        return sample != null ? System.currentTimeMillis() - sample.time : -1;
+    }
+
+    /**
+     * @return Returns the exception the last background refresh failed with,
+     * or null if it succeeded.
+     */
+    public IOException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * @return Returns true if the status is refreshed in the background.
+     */
+    public boolean isPolling() {
+        return scheduler != null && !scheduler.isShutdown();
+    }
+
+    /**
+     * @return Returns the time between background refreshes in milliseconds,
+     * or 0 if the status is not refreshed in the background.
+     */
+    public long getInterval() {
+        return scheduler != null ? interval : 0;
+    }
+
+    /**
+     * Queries the Status API now, on the calling thread.
+     *
+     * @return Returns the new status, which is also the new snapshot.
+     * @throws IOException If BDEA could not be reached or the response could
+     * not be parsed.
+     */
+    public KeyStatus refresh() throws IOException {
+        return client.checkStatus();
+    }
+
+    /**
+     * @param listener Accepts a listener to tell about later transitions.
+     */
+    public void addListener(KeyStatusListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("listener");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener Accepts a listener added earlier.
+     */
+    public void removeListener(KeyStatusListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stops the background refresh. The last snapshot stays readable.
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Publishes a status received by the client and notifies the listeners
+     * if it is a transition.
+     *
+     * @param status Accepts the status returned by the Status API.
+     */
+    void update(KeyStatus status) {
+        Sample previous = snapshot.getAndSet(new Sample(status, System.currentTimeMillis()));
+        KeyStatus before = previous != null ? previous.status : null;
+        if (before != null && !isTransition(before, status)) {
+            return;
+        }
+        for (KeyStatusListener listener : listeners) {
+            try {
+                listener.onKeyStatusChange(before, status);
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "Key status listener failed", ex);
+            }
+        }
+    }
+
+    private void poll() {
+        try {
+            client.checkStatus();
+            lastFailure = null;
+        } catch (IOException ex) {
+            //Only the first of a run of failures is worth a warning.
+            LOG.log(lastFailure == null ? Level.WARNING : Level.FINE, "Unable to refresh key status", ex);
+            lastFailure = ex;
+        }
+    }
+
+    private static boolean isTransition(KeyStatus before, KeyStatus after) {
+        return before.getVersion() != after.getVersion()
+                || !Objects.equals(before.getRequestStatus(), after.getRequestStatus())
+                || !Objects.equals(before.getApiKeyStatus(), after.getApiKeyStatus())
+                || !Objects.equals(before.getCommercialCreditStatus(), after.getCommercialCreditStatus());
+    }
+
+    /**
+     * A status and the time it was received, published together.
+     */
+    private static final class Sample {
+
+        private final KeyStatus status;
+        private final long time;
+
+        private Sample(KeyStatus status, long time) {
+            this.status = status;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package sirjacob.BlockDEA;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets, from
+ * under 1 µs up to about 18 minutes. Percentiles are reported as the upper
+ * bound of the bucket they fall in, so they are accurate to within a factor
+ * of two, which is enough to tell a cache-speed answer from a network round
+ * trip or a timeout.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 31;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos Accepts a duration in nanoseconds; negative values are
+     * recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        long micros = value / 1000;
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * @return Returns the number of recorded durations.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return Returns the mean duration in milliseconds, or 0 if nothing was
+     * recorded.
+     */
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / (double) n / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return Returns the longest recorded duration in milliseconds.
+     */
+    public double getMaxMillis() {
+        return maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @param quantile Accepts the quantile to estimate, between 0 and 1.
+     * @return Returns the upper bound of the bucket holding the quantile, in
+     * milliseconds, or 0 if nothing was recorded.
+     */
+    public double getPercentileMillis(double quantile) {
+        long[] snapshot = getBuckets();
+        long total = 0;
+        for (long c : snapshot) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(Math.min(1, Math.max(0, quantile)) * total);
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(getUpperBoundMicros(i) / 1000.0, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * @return Returns a copy of the bucket counts. Bucket i holds durations
+     * below {@link #getUpperBoundMicros(int)} microseconds and at or above the
+     * bound of bucket i - 1.
+     */
+    public long[] getBuckets() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @param bucket Accepts a bucket index.
+     * @return Returns the exclusive upper bound of the bucket in microseconds;
+     * the last bucket is unbounded.
+     */
+    public static long getUpperBoundMicros(int bucket) {
+        return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+}
@@ -0,0 +1,198 @@
+package sirjacob.BlockDEA;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Local allowlist and blocklist consulted before BDEA, so known domains cost
+ * no credits and no network round trip. The allowlist wins when a domain is
+ * on both lists.
+ * <p>
+ * Lists may be loaded from files and hot-reloaded: {@link #reload()} swaps in
+ * freshly parsed lists atomically, and {@link #watch(long)} polls the files'
+ * modification times in the background. Lookups never wait for a reload.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class LocalRules implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(LocalRules.class.getName());
+
+    private final Path allowFile;
+    private final Path blockFile;
+    private final DomainNormalizer normalizer;
+    private volatile Snapshot snapshot;
+    private ScheduledExecutorService watcher;
+
+    /**
+     * Creates fixed rules that are not backed by files.
+     *
+     * @param allow Accepts the domains that are always allowed.
+     * @param block Accepts the domains that are always blocked.
+     */
+    public LocalRules(DomainSet allow, DomainSet block) {
+        this.allowFile = null;
+        this.blockFile = null;
+        this.normalizer = null;
+        this.snapshot = new Snapshot(allow, block, 0, 0);
+    }
+
+    private LocalRules(Path allowFile, Path blockFile, DomainNormalizer normalizer) throws IOException {
+        this.allowFile = allowFile;
+        this.blockFile = blockFile;
+        this.normalizer = normalizer;
+        reload();
+    }
+
+    /**
+     * Loads rules from files in the {@link DomainSet} format, normalized with
+     * {@link DomainNormalizer#DEFAULT}.
+     *
+     * @param allowFile Accepts the allowlist file, or null for none.
+     * @param blockFile Accepts the blocklist file, or null for none.
+     * @return Returns the loaded rules.
+     * @throws IOException If a file could not be read.
+     */
+    public static LocalRules load(Path allowFile, Path blockFile) throws IOException {
+        return load(allowFile, blockFile, DomainNormalizer.DEFAULT);
+    }
+
+    /**
+     * Loads rules from files in the {@link DomainSet} format.
+     *
+     * @param allowFile Accepts the allowlist file, or null for none.
+     * @param blockFile Accepts the blocklist file, or null for none.
+     * @param normalizer Accepts the normalizer of the client the rules are
+     * used with, also applied on every reload.
+     * @return Returns the loaded rules.
+     * @throws IOException If a file could not be read.
+     */
+    public static LocalRules load(Path allowFile, Path blockFile, DomainNormalizer normalizer) throws IOException {
+        if (normalizer == null) {
+            throw new NullPointerException("normalizer");
+        }
+        return new LocalRules(allowFile, blockFile, normalizer);
+    }
+
+    /**
+     * @param domain Accepts a normalized domain.
+     * @return Returns {@link Verdict#ALLOW} or {@link Verdict#BLOCK} if a rule
+     * matches, otherwise null.
+     */
+    public Verdict match(String domain) {
+        Snapshot current = snapshot;
+        if (current.allow.contains(domain)) {
+            return Verdict.ALLOW;
+        }
+        if (current.block.contains(domain)) {
+            return Verdict.BLOCK;
+        }
+        return null;
+    }
+
+    /**
+     * Re-reads both files and swaps in the new lists. Does nothing for rules
+     * that are not backed by files.
+     *
+     * @throws IOException If a file could not be read; the previous lists stay
+     * in use.
+     */
+    public synchronized void reload() throws IOException {
+        if (allowFile == null && blockFile == null && snapshot != null) {
+            return;
+        }
+        long allowModified = modified(allowFile);
+        long blockModified = modified(blockFile);
+        DomainSet allow = allowFile != null ? DomainSet.load(allowFile, normalizer) : DomainSet.EMPTY;
+        DomainSet block = blockFile != null ? DomainSet.load(blockFile, normalizer) : DomainSet.EMPTY;
+        snapshot = new Snapshot(allow, block, allowModified, blockModified);
+        LOG.log(Level.FINE, "Loaded {0} allow and {1} block rules", new Object[]{allow.size(), block.size()});
+    }
+
+    /**
+     * Reloads the files if either has been modified since the last load.
+     *
+     * @return Returns true if the rules were reloaded.
+     * @throws IOException If a file could not be read.
+     */
+    public synchronized boolean reloadIfChanged() throws IOException {
+        Snapshot current = snapshot;
+        if (modified(allowFile) == current.allowModified && modified(blockFile) == current.blockModified) {
+            return false;
+        }
+        reload();
+        return true;
+    }
+
+    /**
+     * Starts polling the rule files for changes.
+     *
+     * @param intervalMillis Accepts how often the files are checked.
+     */
+    public synchronized void watch(long intervalMillis) {
+        if (watcher != null) {
+            throw new IllegalStateException("Already watching");
+        }
+        watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "LocalRules-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watcher.scheduleWithFixedDelay(() -> {
+            try {
+                reloadIfChanged();
+            } catch (IOException ex) {
+                LOG.log(Level.WARNING, "Unable to reload local rules", ex);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops watching the rule files.
+     */
+    @Override
+    public synchronized void close() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+            watcher = null;
+        }
+    }
+
+    public DomainSet getAllowList() {
+        return snapshot.allow;
+    }
+
+    public DomainSet getBlockList() {
+        return snapshot.block;
+    }
+
+    private static long modified(Path file) throws IOException {
+        return file == null ? 0 : Files.getLastModifiedTime(file).toMillis();
+    }
+
+    /**
+     * Lists loaded together, swapped as a unit.
+     */
+    private static final class Snapshot {
+
+        private final DomainSet allow;
+        private final DomainSet block;
+        private final long allowModified;
+        private final long blockModified;
+
+        private Snapshot(DomainSet allow, DomainSet block, long allowModified, long blockModified) {
+            this.allow = allow;
+            this.block = block;
+            this.allowModified = allowModified;
+            this.blockModified = blockModified;
+        }
+    }
+}
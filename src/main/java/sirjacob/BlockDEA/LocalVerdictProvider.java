@@ -0,0 +1,14 @@
+package sirjacob.BlockDEA;
+
+/**
+ * Marks the providers {@link VerdictProvider#of(LocalRules)} and
+ * {@link VerdictProvider#of(VerdictCache)} adapt a client's local layers
+ * with. A re-check exists to ask BDEA again instead of replaying what is
+ * already known, so {@link BlockDeaClient#recheckDomain(String)} skips them.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+@FunctionalInterface
+interface LocalVerdictProvider extends VerdictProvider {
+}
@@ -0,0 +1,219 @@
+package sirjacob.BlockDEA;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micro-batching front end for high rates of independent lookups. Domains
+ * that are not answered locally (rules, filter, cache) are collected for a
+ * short window, or until the batch is full, then deduplicated and dispatched
+ * together through the client, which runs them in parallel over its pooled
+ * connections. Every caller gets its own future, completed as soon as its
+ * domain is answered.
+ * <p>
+ * Callers trade up to one window of extra latency on a cache miss for fewer
+ * requests: every submission of a domain within a window shares one lookup,
+ * in addition to the client's own coalescing of in-flight lookups. The
+ * EasyAPI answers one domain per request, so a batch is fanned out rather
+ * than sent as one request.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class LookupBatcher implements Closeable {
+
+    /**
+     * Default collection window in milliseconds.
+     */
+    public static final long DEFAULT_WINDOW = 5;
+    /**
+     * Default number of distinct domains that triggers an early dispatch.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    private final BlockDeaClient client;
+    private final long window;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Object lock = new Object();
+    private Map<String, CompletableFuture<Verdict>> batch = new HashMap<>();
+    private ScheduledFuture<?> flushTask;
+    private boolean closed;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    /**
+     * Creates a batcher with the default window and batch size.
+     *
+     * @param client Accepts the client that answers the lookups; it is not
+     * closed with the batcher.
+     */
+    public LookupBatcher(BlockDeaClient client) {
+        this(client, DEFAULT_WINDOW, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param client Accepts the client that answers the lookups; it is not
+     * closed with the batcher.
+     * @param window Accepts the longest time a lookup waits for its batch to
+     * be dispatched, in milliseconds.
+     * @param maxBatchSize Accepts the number of distinct domains that causes
+     * a batch to be dispatched before its window ends.
+     */
+    public LookupBatcher(BlockDeaClient client, long window, int maxBatchSize) {
+        if (window < 0 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Window must not be negative and batch size must be positive");
+        }
+        this.client = client;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bdea-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a domain for the next batch. Malformed input and domains
+     * answered by the client's local rules, filter or cache complete
+     * immediately, as do expired verdicts within the cache's grace period,
+     * which are refreshed in the background.
+     *
+     * @param domain Accepts a domain, email address or URL.
+     * @return Returns a future completed with the verdict, or completed
+     * exceptionally with an {@link java.io.IOException} if BDEA could not be
+     * reached.
+     * @throws IllegalStateException If the batcher is closed.
+     */
+    public CompletableFuture<Verdict> submit(String domain) {
+        submitted.incrementAndGet();
+        String key = client.normalize(domain);
+        Verdict local = key != null ? client.checkLocal(key) : Verdict.FAIL_INPUT_DOMAIN;
+        if (local == null) {
+            local = client.serveStale(key);
+        }
+        if (local != null) {
+            return CompletableFuture.completedFuture(local);
+        }
+        CompletableFuture<Verdict> future;
+        Map<String, CompletableFuture<Verdict>> full = null;
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Batcher is closed");
+            }
+            future = batch.get(key);
+            if (future != null) {
+                deduplicated.incrementAndGet();
+            } else {
+                future = new CompletableFuture<>();
+                batch.put(key, future);
+                if (batch.size() >= maxBatchSize) {
+                    full = takeBatch();
+                } else if (flushTask == null) {
+                    flushTask = scheduler.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        //Each caller gets its own dependent future, so one caller cancelling
+        //or completing it cannot affect the others.
+        return future.thenApply(verdict -> verdict);
+    }
+
+    /**
+     * Dispatches the current batch without waiting for its window to end.
+     */
+    public void flush() {
+        Map<String, CompletableFuture<Verdict>> current;
+        synchronized (lock) {
+            current = takeBatch();
+        }
+        dispatch(current);
+    }
+
+    /**
+     * @return Returns the number of domains submitted.
+     */
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /**
+     * @return Returns the number of submissions that joined a domain already
+     * waiting in the same batch.
+     */
+    public long getDeduplicatedCount() {
+        return deduplicated.get();
+    }
+
+    /**
+     * @return Returns the number of distinct domains passed to the client.
+     */
+    public long getDispatchedCount() {
+        return dispatched.get();
+    }
+
+    /**
+     * @return Returns the number of batches dispatched.
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Dispatches the pending batch and stops accepting new domains. Lookups
+     * already dispatched still complete.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        flush();
+        scheduler.shutdown();
+    }
+
+    /**
+     * Swaps in an empty batch. Must be called holding the lock.
+     */
+    private Map<String, CompletableFuture<Verdict>> takeBatch() {
+        Map<String, CompletableFuture<Verdict>> current = batch;
+        batch = new HashMap<>();
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        return current;
+    }
+
+    private void dispatch(Map<String, CompletableFuture<Verdict>> current) {
+        if (current.isEmpty()) {
+            return;
+        }
+        batches.incrementAndGet();
+        dispatched.addAndGet(current.size());
+        for (Map.Entry<String, CompletableFuture<Verdict>> entry : current.entrySet()) {
+            final CompletableFuture<Verdict> future = entry.getValue();
+            client.lookupAsync(entry.getKey()).whenComplete((verdict, ex) -> {
+                if (ex != null) {
+                    future.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                } else {
+                    future.complete(verdict);
+                }
+            });
+        }
+    }
+}
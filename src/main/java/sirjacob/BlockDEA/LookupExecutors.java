@@ -0,0 +1,95 @@
+package sirjacob.BlockDEA;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory methods for executors that run blocking BDEA lookups. On JDK 21 and
+ * newer a virtual thread per lookup is the cheapest option, since lookups
+ * spend nearly all their time waiting on the network; older JDKs fall back to
+ * a fixed pool of daemon threads. Virtual threads are looked up reflectively
+ * so the client still runs on Java 8.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class LookupExecutors {
+
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadFactory();
+
+    private LookupExecutors() {
+    }
+
+    /**
+     * @return Returns true if the running JDK supports virtual threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * @return Returns an executor that starts a new virtual thread for each
+     * task.
+     * @throws UnsupportedOperationException If the running JDK does not
+     * support virtual threads.
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads require JDK 21 or newer");
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            throw new UnsupportedOperationException("Unable to create a virtual thread executor", ex);
+        }
+    }
+
+    /**
+     * @param name Accepts the prefix used for thread names.
+     * @param threads Accepts the number of threads.
+     * @return Returns a fixed pool of daemon threads, which never keeps the
+     * JVM alive on its own.
+     */
+    public static ExecutorService newDaemonPool(final String name, int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param name Accepts the prefix used for thread names.
+     * @return Returns an unbounded pool of daemon threads that are created on
+     * demand and discarded after a minute of idleness.
+     */
+    public static ExecutorService newCachedDaemonPool(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param threads Accepts the pool size used when virtual threads are not
+     * available.
+     * @return Returns a virtual thread executor if supported, otherwise a
+     * daemon pool of the given size.
+     */
+    public static ExecutorService newDefaultExecutor(int threads) {
+        return isVirtualThreadSupported() ? newVirtualThreadExecutor() : newDaemonPool("bdea-lookup", threads);
+    }
+
+    private static Method findVirtualThreadFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+}
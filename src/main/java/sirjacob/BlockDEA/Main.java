@@ -0,0 +1,182 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of the jar. Scripts and cron jobs use the headless subcommands,
+ * which never load AWT or Swing classes:
+ * <pre>
+ * check [--key KEY] [--verdicts FILE] domain...
+ *                               check domains or email addresses
+ * status [--key KEY]            show the API key's status
+ * bulk ...                      see {@link BulkChecker#main(String[])}
+ * rescreen ...                  see {@link Rescreener#main(String[])}
+ * changes ...                   see {@link ChangeFeed#main(String[])}
+ * serve ...                     see {@link VerdictServer#main(String[])}
+ * gui                           open the {@link Display} window
+ * </pre>
+ * Without a subcommand the window is opened, unless there is no display.
+ * The key may also be supplied through the BDEA_API_KEY environment variable.
+ * <p>
+ * {@code check} prints one {@code domain,response} row per argument and exits
+ * with 0 if every domain is allowed, 1 if any is blocked and 3 if any could
+ * not be checked. With {@code --verdicts}, domains in the
+ * {@link FileVerdictProvider verdict file} are answered from it and only the
+ * rest are sent to BDEA. {@code status} exits with 0 if the key is active and 1
+ * otherwise.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class Main {
+
+    private static final String USAGE = "Usage: BlockDEA check [--key KEY] [--verdicts FILE] domain...\n"
+            + "       BlockDEA status [--key KEY]\n"
+            + "       BlockDEA bulk|rescreen|changes|serve [options]\n"
+            + "       BlockDEA gui";
+    private static final int EXIT_BLOCKED = 1;
+    private static final int EXIT_USAGE = 2;
+    private static final int EXIT_FAILED = 3;
+
+    private Main() {
+    }
+
+    /**
+     * @param args the command line arguments
+     * @throws Exception If a subcommand failed in a way it does not report
+     * itself.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            gui(args);
+            return;
+        }
+        String[] rest = Arrays.copyOfRange(args, 1, args.length);
+        switch (args[0]) {
+            case "check":
+                System.exit(check(rest));
+                break;
+            case "status":
+                System.exit(status(rest));
+                break;
+            case "bulk":
+                BulkChecker.main(rest);
+                break;
+            case "rescreen":
+                Rescreener.main(rest);
+                break;
+            case "changes":
+                ChangeFeed.main(rest);
+                break;
+            case "serve":
+                VerdictServer.main(rest);
+                break;
+            case "gui":
+                gui(rest);
+                break;
+            default:
+                usage();
+                break;
+        }
+    }
+
+    private static int check(String[] args) throws IOException {
+        String key = System.getenv("BDEA_API_KEY");
+        Path verdicts = null;
+        List<String> domains = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--key":
+                    key = BulkChecker.optionValue(args, i++, USAGE);
+                    break;
+                case "--verdicts":
+                    verdicts = Paths.get(BulkChecker.optionValue(args, i++, USAGE));
+                    break;
+                default:
+                    domains.add(args[i]);
+                    break;
+            }
+        }
+        if (key == null || domains.isEmpty()) {
+            usage();
+        }
+        BlockDeaClient.Builder builder = BlockDeaClient.builder(key).maxConnections(1);
+        if (verdicts != null) {
+            builder.provider(new CompositeVerdictProvider(FileVerdictProvider.load(verdicts),
+                    new EasyApiProvider(key, new UrlConnectionTransport())));
+        }
+        int exit = 0;
+        try (BlockDeaClient client = builder.build()) {
+            for (String domain : domains) {
+                Verdict verdict;
+                try {
+                    verdict = client.checkDomain(domain);
+                } catch (IOException ex) {
+                    System.out.println(domain + ",io_error");
+                    System.err.println(domain + ": " + ex);
+                    exit = EXIT_FAILED;
+                    continue;
+                }
+                System.out.println(domain + "," + verdict.getResponse());
+                if (verdict.isFailure()) {
+                    exit = EXIT_FAILED;
+                } else if (verdict == Verdict.BLOCK && exit == 0) {
+                    exit = EXIT_BLOCKED;
+                }
+            }
+        }
+        return exit;
+    }
+
+    private static int status(String[] args) {
+        String key = System.getenv("BDEA_API_KEY");
+        if (args.length == 2 && "--key".equals(args[0])) {
+            key = args[1];
+        } else if (args.length != 0) {
+            usage();
+        }
+        if (key == null) {
+            usage();
+        }
+        KeyStatus status;
+        try (BlockDeaClient client = BlockDeaClient.builder(key).maxConnections(1).build()) {
+            status = client.checkStatus();
+        } catch (IOException ex) {
+            System.err.println("Unable to check key status: " + ex);
+            return EXIT_FAILED;
+        }
+        System.out.println("API key status: " + status.getApiKeyStatus());
+        String credits = status.getCredits() != KeyStatus.UNKNOWN_CREDITS ? Long.toString(status.getCredits()) : "unknown";
+        System.out.println("Credits: " + credits + " (" + status.getCommercialCreditStatus() + ")");
+        System.out.println("API version: " + status.getVersion());
+        return status.isActive() ? 0 : EXIT_BLOCKED;
+    }
+
+    /**
+     * Opens the window. Display is loaded by name, so AWT and Swing are only
+     * loaded (and initialized) when the window is actually wanted.
+     */
+    private static void gui(String[] args) throws Exception {
+        if (java.awt.GraphicsEnvironment.isHeadless()) {
+            System.err.println("No display available; use a headless subcommand.");
+            usage();
+        }
+        try {
+            Class.forName("sirjacob.BlockDEA.Display").getMethod("main", String[].class).invoke(null, (Object) args);
+        } catch (InvocationTargetException ex) {
+            Throwable cause = ex.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+        }
+    }
+
+    private static void usage() {
+        System.err.println(USAGE);
+        System.exit(EXIT_USAGE);
+    }
+}
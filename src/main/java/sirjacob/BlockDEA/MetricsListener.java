@@ -0,0 +1,59 @@
+package sirjacob.BlockDEA;
+
+/**
+ * Receives instrumentation events from a {@link BlockDeaClient}. Register
+ * listeners with {@link BlockDeaClient.Builder#metricsListener(MetricsListener)}
+ * to forward timings and verdict counts to an external monitoring system.
+ * <p>
+ * Events are delivered synchronously on the thread that made the request, so
+ * implementations must be thread safe and should return quickly. Exceptions
+ * thrown by a listener are logged and otherwise ignored.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public interface MetricsListener {
+
+    /**
+     * BDEA endpoints a request can be made to.
+     */
+    enum Endpoint {
+        /**
+         * EasyAPI (Simple Text Output Method) domain lookups.
+         */
+        EASY_API,
+        /**
+         * Status API key status checks.
+         */
+        STATUS_API
+    }
+
+    /**
+     * Called after every HTTP request to BDEA, successful or not.
+     *
+     * @param endpoint Accepts the endpoint that was called.
+     * @param nanos Accepts the time the request took, in nanoseconds.
+     * @param failure Accepts the exception the request failed with, or null
+     * if a response was received.
+     */
+    default void onRequest(Endpoint endpoint, long nanos, Throwable failure) {
+    }
+
+    /**
+     * Called for every verdict returned by the EasyAPI. Verdicts answered
+     * locally (rules, filter, cache, store) are not reported.
+     *
+     * @param domain Accepts the normalized domain that was checked.
+     * @param verdict Accepts the verdict BDEA returned.
+     */
+    default void onVerdict(String domain, Verdict verdict) {
+    }
+
+    /**
+     * Called for every key status received from the Status API.
+     *
+     * @param status Accepts the parsed status.
+     */
+    default void onKeyStatus(KeyStatus status) {
+    }
+}
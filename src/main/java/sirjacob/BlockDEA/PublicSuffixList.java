@@ -0,0 +1,142 @@
+package sirjacob.BlockDEA;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Public suffix list (https://publicsuffix.org/list/), used to collapse host
+ * names such as {@code mail.example.co.uk} to the domain that was registered,
+ * {@code example.co.uk}. Supports the list's normal, wildcard ({@code *.})
+ * and exception ({@code !}) rules; names matching no rule fall back to the
+ * implicit {@code *} rule, i.e. their last label is the suffix.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class PublicSuffixList {
+
+    private final Set<String> rules;
+    private final Set<String> wildcards;
+    private final Set<String> exceptions;
+
+    private PublicSuffixList(Set<String> rules, Set<String> wildcards, Set<String> exceptions) {
+        this.rules = rules;
+        this.wildcards = wildcards;
+        this.exceptions = exceptions;
+    }
+
+    /**
+     * @param file Accepts a file in the public_suffix_list.dat format.
+     * @return Returns the list.
+     * @throws IOException If the file could not be read.
+     */
+    public static PublicSuffixList load(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * @param reader Accepts text in the public_suffix_list.dat format; it is
+     * not closed.
+     * @return Returns the list.
+     * @throws IOException If the text could not be read.
+     */
+    public static PublicSuffixList read(Reader reader) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        Set<String> rules = new HashSet<>();
+        Set<String> wildcards = new HashSet<>();
+        Set<String> exceptions = new HashSet<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("//")) {
+                continue;
+            }
+            int space = indexOfWhitespace(line);
+            String rule = space >= 0 ? line.substring(0, space) : line;
+            try {
+                if (rule.startsWith("!")) {
+                    exceptions.add(toAscii(rule.substring(1)));
+                } else if (rule.startsWith("*.")) {
+                    wildcards.add(toAscii(rule.substring(2)));
+                } else {
+                    rules.add(toAscii(rule));
+                }
+            } catch (IllegalArgumentException ex) {
+                //Not a valid IDN; such a rule can never match a normalized name.
+            }
+        }
+        return new PublicSuffixList(rules, wildcards, exceptions);
+    }
+
+    /**
+     * @param host Accepts a normalized (lower case, ASCII) host name.
+     * @return Returns the public suffix of the host, e.g. {@code co.uk}.
+     */
+    public String getPublicSuffix(String host) {
+        int start = 0;
+        while (true) {
+            String candidate = start == 0 ? host : host.substring(start);
+            if (exceptions.contains(candidate)) {
+                int dot = candidate.indexOf('.');
+                return dot >= 0 ? candidate.substring(dot + 1) : candidate;
+            }
+            if (rules.contains(candidate)) {
+                return candidate;
+            }
+            int dot = candidate.indexOf('.');
+            if (dot < 0) {
+                //Implicit "*" rule: the last label is the suffix.
+                return candidate;
+            }
+            if (wildcards.contains(candidate.substring(dot + 1))) {
+                return candidate;
+            }
+            start += dot + 1;
+        }
+    }
+
+    /**
+     * @param host Accepts a normalized (lower case, ASCII) host name.
+     * @return Returns the public suffix plus one label, e.g.
+     * {@code example.co.uk}, or null if the host is itself a public suffix.
+     */
+    public String getRegistrableDomain(String host) {
+        String suffix = getPublicSuffix(host);
+        if (suffix.length() >= host.length()) {
+            return null;
+        }
+        int end = host.length() - suffix.length() - 1;
+        int dot = host.lastIndexOf('.', end - 1);
+        return dot < 0 ? host : host.substring(dot + 1);
+    }
+
+    /**
+     * @return Returns the number of rules in the list.
+     */
+    public int size() {
+        return rules.size() + wildcards.size() + exceptions.size();
+    }
+
+    private static String toAscii(String rule) {
+        return IDN.toASCII(rule, IDN.ALLOW_UNASSIGNED).toLowerCase(Locale.ROOT);
+    }
+
+    private static int indexOfWhitespace(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.isWhitespace(s.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
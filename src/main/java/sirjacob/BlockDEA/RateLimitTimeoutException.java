@@ -0,0 +1,23 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request to BDEA had to wait longer than the client's rate
+ * limit wait for a {@link CreditRateLimiter} token. No request was made, so it
+ * says nothing about BDEA's health.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class RateLimitTimeoutException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param waited Accepts how long the request waited, in milliseconds.
+     */
+    public RateLimitTimeoutException(long waited) {
+        super("Timed out after " + waited + " ms waiting for the rate limiter");
+    }
+}
@@ -0,0 +1,728 @@
+package sirjacob.BlockDEA;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Re-checks a large list of domains or email addresses, such as a whole
+ * signup history, in parallel and resumably. Every domain is asked of BDEA
+ * with {@link BlockDeaClient#recheckDomainAsync(String)}, bypassing the local
+ * rules, cache and store, so a run re-validates verdicts instead of replaying
+ * the ones already known; the fresh verdicts replace them.
+ * <p>
+ * Domains are sharded by hash. Every shard scans the input on its own worker
+ * (a virtual thread where supported), keeps its own set of domains seen, has
+ * up to {@code concurrency} lookups in flight and appends its results to its
+ * own file, {@code shard-NNN.csv} in the run directory, in the row format of
+ * {@link BulkChecker}. A domain always lands in the same shard, so shards
+ * never coordinate.
+ * <p>
+ * Every checkpoint interval the shard files are flushed to disk and
+ * {@code checkpoint.properties} is replaced atomically with the progress so
+ * far. Running again on the same directory resumes: domains that already have
+ * an ALLOW or BLOCK row (or were rejected as malformed) are skipped without a
+ * lookup, so nothing is paid for twice; failures are retried.
+ * <p>
+ * The key status is checked before starting, and the run stops on its own
+ * once the credit budget is used up or BDEA reports the key out of credits or
+ * invalid. It can be resumed once credits are added.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class Rescreener {
+
+    /**
+     * Default number of shards.
+     */
+    public static final int DEFAULT_SHARDS = 8;
+    /**
+     * Default number of lookups in flight per shard.
+     */
+    public static final int DEFAULT_CONCURRENCY = 4;
+    /**
+     * Default time between checkpoints in milliseconds.
+     */
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    /**
+     * Name of the checkpoint file in the run directory.
+     */
+    public static final String CHECKPOINT_FILE = "checkpoint.properties";
+
+    private static final Logger LOG = Logger.getLogger(Rescreener.class.getName());
+
+    private final BlockDeaClient client;
+    private final int shards;
+    private final int concurrency;
+    private final int column;
+    private final long checkpointInterval;
+
+    /**
+     * Creates a re-screener with the default shards, concurrency and
+     * checkpoint interval for line-delimited input.
+     *
+     * @param client Accepts the client used for lookups.
+     */
+    public Rescreener(BlockDeaClient client) {
+        this(client, DEFAULT_SHARDS, DEFAULT_CONCURRENCY, 0, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * @param client Accepts the client used for lookups.
+     * @param shards Accepts the number of shards; a run must be resumed with
+     * the number it was started with.
+     * @param concurrency Accepts the maximum number of lookups in flight per
+     * shard.
+     * @param column Accepts the zero based CSV column holding the address or
+     * domain; use 0 for plain line-delimited input.
+     * @param checkpointInterval Accepts the time between checkpoints in
+     * milliseconds.
+     */
+    public Rescreener(BlockDeaClient client, int shards, int concurrency, int column, long checkpointInterval) {
+        if (shards <= 0 || shards > 1000 || concurrency <= 0 || column < 0 || checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Shards (up to 1000), concurrency and checkpoint interval must be positive and column must not be negative");
+        }
+        this.client = client;
+        this.shards = shards;
+        this.concurrency = concurrency;
+        this.column = column;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Checks every distinct domain of the input that has no result in the
+     * run directory yet. Returns when all lookups have finished or the run
+     * stopped early; see {@link Progress#getState()}.
+     *
+     * @param input Accepts the input file, read once per shard.
+     * @param directory Accepts the run directory, created if needed; use the
+     * same directory to resume.
+     * @param creditBudget Accepts the most credits to spend, or -1 to spend
+     * up to the credits the Status API reports (without limit if it does not
+     * report them).
+     * @param listener Accepts a listener for progress reports, or null.
+     * @return Returns the final progress.
+     * @throws IOException If the key is not active, the input could not be
+     * read, the results could not be written, or the directory holds a run
+     * with a different number of shards.
+     */
+    public Progress run(Path input, Path directory, long creditBudget, ProgressListener listener) throws IOException {
+        Files.createDirectories(directory);
+        checkResumable(directory);
+        KeyStatus status = client.checkStatus();
+        if (!status.isActive()) {
+            throw new IOException("API key is not active: " + status.getApiKeyStatus());
+        }
+        long budget = creditBudget >= 0 ? creditBudget : Long.MAX_VALUE;
+        if (status.getCredits() != KeyStatus.UNKNOWN_CREDITS) {
+            budget = Math.min(budget, status.getCredits());
+        }
+        final Run run = new Run(input, directory, budget, listener);
+        ExecutorService workers = LookupExecutors.isVirtualThreadSupported()
+                ? LookupExecutors.newVirtualThreadExecutor()
+                : LookupExecutors.newDaemonPool("bdea-rescreen", shards);
+        ScheduledExecutorService checkpoints = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bdea-rescreen-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpoints.scheduleWithFixedDelay(() -> {
+            try {
+                run.checkpoint();
+            } catch (IOException ex) {
+                LOG.log(Level.WARNING, "Unable to write checkpoint", ex);
+            }
+        }, checkpointInterval, checkpointInterval, TimeUnit.MILLISECONDS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Shard shard : run.shards) {
+                futures.add(workers.submit(() -> {
+                    shard.run();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            run.stop(State.FINISHED);
+        } catch (InterruptedException ex) {
+            run.stop(State.INTERRUPTED);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while re-screening");
+        } catch (ExecutionException ex) {
+            run.stop(State.INTERRUPTED);
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            checkpoints.shutdownNow();
+            workers.shutdownNow();
+            run.close();
+        }
+        Progress progress = run.snapshot();
+        if (listener != null) {
+            listener.progress(progress);
+        }
+        return progress;
+    }
+
+    /**
+     * Command line entry point.
+     * <p>
+     * Usage: {@code Rescreener [--key KEY] [--shards N] [--concurrency N]
+     * [--column N] [--budget CREDITS] input directory}. The key may also be
+     * supplied through the BDEA_API_KEY environment variable. Progress is
+     * reported on stderr; run the same command again to resume.
+     *
+     * @param args the command line arguments
+     * @throws IOException If the run could not be started or its files could
+     * not be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        String usage = "Usage: Rescreener [--key KEY] [--shards N] [--concurrency N] [--column N] [--budget CREDITS] input directory";
+        String key = System.getenv("BDEA_API_KEY");
+        int shards = DEFAULT_SHARDS;
+        int concurrency = DEFAULT_CONCURRENCY;
+        int column = 0;
+        long budget = -1;
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--key":
+                    key = BulkChecker.optionValue(args, i++, usage);
+                    break;
+                case "--shards":
+                    shards = Integer.parseInt(BulkChecker.optionValue(args, i++, usage));
+                    break;
+                case "--concurrency":
+                    concurrency = Integer.parseInt(BulkChecker.optionValue(args, i++, usage));
+                    break;
+                case "--column":
+                    column = Integer.parseInt(BulkChecker.optionValue(args, i++, usage));
+                    break;
+                case "--budget":
+                    budget = Long.parseLong(BulkChecker.optionValue(args, i++, usage));
+                    break;
+                default:
+                    positional.add(args[i]);
+                    break;
+            }
+        }
+        if (key == null || positional.size() != 2) {
+            System.err.println(usage);
+            System.exit(2);
+        }
+        try (BlockDeaClient client = BlockDeaClient.builder(key).maxConnections(shards * concurrency).build()) {
+            Progress progress = new Rescreener(client, shards, concurrency, column, DEFAULT_CHECKPOINT_INTERVAL)
+                    .run(Paths.get(positional.get(0)), Paths.get(positional.get(1)), budget, p -> System.err.println(p));
+            if (progress.getState() != State.FINISHED) {
+                System.exit(3);
+            }
+        }
+    }
+
+    /**
+     * @param domain Accepts a normalized domain.
+     * @param shards Accepts the number of shards.
+     * @return Returns the shard the domain belongs to.
+     */
+    static int shardOf(String domain, int shards) {
+        int h = domain.hashCode();
+        h ^= h >>> 16;
+        return (h & 0x7fffffff) % shards;
+    }
+
+    private void checkResumable(Path directory) throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        Properties checkpoint = new Properties();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            checkpoint.load(in);
+        }
+        String previous = checkpoint.getProperty("shards");
+        if (previous != null && Integer.parseInt(previous) != shards) {
+            throw new IOException(directory + " holds a run with " + previous + " shards, not " + shards);
+        }
+    }
+
+    /**
+     * Why a run ended.
+     */
+    public enum State {
+        /**
+         * Still running.
+         */
+        RUNNING,
+        /**
+         * Every domain of the input has a result.
+         */
+        FINISHED,
+        /**
+         * The credit budget was used up.
+         */
+        BUDGET_SPENT,
+        /**
+         * BDEA answered fail_key or fail_key_low_credits.
+         */
+        KEY_REJECTED,
+        /**
+         * The run was interrupted or a shard failed.
+         */
+        INTERRUPTED
+    }
+
+    /**
+     * Receives progress reports: one per checkpoint, plus one at the end.
+     */
+    public interface ProgressListener {
+
+        /**
+         * @param progress Accepts the progress so far.
+         */
+        void progress(Progress progress);
+    }
+
+    /**
+     * Immutable snapshot of a run's progress, totalled over all shards.
+     */
+    public static final class Progress {
+
+        private final State state;
+        private final long skipped;
+        private final long submitted;
+        private final long completed;
+        private final long allowed;
+        private final long blocked;
+        private final long failed;
+        private final long requests;
+        private final long budget;
+        private final long elapsedMillis;
+
+        private Progress(State state, long skipped, long submitted, long completed, long allowed, long blocked, long failed, long requests, long budget, long elapsedMillis) {
+            this.state = state;
+            this.skipped = skipped;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.allowed = allowed;
+            this.blocked = blocked;
+            this.failed = failed;
+            this.requests = requests;
+            this.budget = budget;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * @return Returns the number of distinct domains skipped because an
+         * earlier run already has their result.
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * @return Returns the number of distinct domains sent for checking.
+         */
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        /**
+         * @return Returns the number of domains with a result.
+         */
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getAllowed() {
+            return allowed;
+        }
+
+        public long getBlocked() {
+            return blocked;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return Returns the number of EasyAPI requests made, an upper bound
+         * on the credits spent.
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return Returns the most credits the run may spend, or
+         * Long.MAX_VALUE if there is no limit.
+         */
+        public long getBudget() {
+            return budget;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return Returns completed lookups per second.
+         */
+        public double getThroughput() {
+            return elapsedMillis == 0 ? 0 : completed * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d/%d domains checked (%d allow, %d block, %d failure), %d skipped, %d/%s credits, %.1f/s",
+                    state, completed, submitted, allowed, blocked, failed, skipped, requests,
+                    budget == Long.MAX_VALUE ? "unlimited" : Long.toString(budget), getThroughput());
+        }
+    }
+
+    /**
+     * State of one {@link #run} call, shared with the shards and the
+     * checkpoint thread.
+     */
+    private final class Run {
+
+        private final Path input;
+        private final Path directory;
+        private final long budget;
+        private final ProgressListener listener;
+        private final Shard[] shards;
+        private final long started = System.nanoTime();
+        private final long startRequests = client.getMetrics().getEasyApiRequests();
+        private final int requestsPerLookup = client.getMaxRequestsPerLookup();
+        private volatile State state = State.RUNNING;
+
+        private Run(Path input, Path directory, long budget, ProgressListener listener) {
+            this.input = input;
+            this.directory = directory;
+            this.budget = budget;
+            this.listener = listener;
+            this.shards = new Shard[Rescreener.this.shards];
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = new Shard(this, i);
+            }
+        }
+
+        private boolean isRunning() {
+            return state == State.RUNNING;
+        }
+
+        /**
+         * Ends the run unless it already ended for another reason.
+         */
+        private synchronized void stop(State reason) {
+            if (state == State.RUNNING) {
+                state = reason;
+            }
+        }
+
+        /**
+         * Counts another lookup of the shard as submitted if it fits in the
+         * credit budget. Every lookup still in flight, including the new one,
+         * is counted as the most requests one lookup can make with the
+         * client's retries and hedging. Shards reserve one at a time, so
+         * together they cannot overshoot; with retries or hedging a run may
+         * instead stop a few credits short of the budget.
+         *
+         * @return Returns false if the budget is used up.
+         */
+        private synchronized boolean reserve(Shard shard) {
+            long inFlight = 0;
+            for (Shard s : shards) {
+                inFlight += s.submitted.get() - s.completed.get();
+            }
+            if (requests() + (inFlight + 1) * requestsPerLookup > budget) {
+                return false;
+            }
+            shard.submitted.incrementAndGet();
+            return true;
+        }
+
+        private long requests() {
+            return client.getMetrics().getEasyApiRequests() - startRequests;
+        }
+
+        /**
+         * Flushes every shard file to disk, then atomically replaces the
+         * checkpoint file.
+         */
+        private synchronized void checkpoint() throws IOException {
+            for (Shard shard : shards) {
+                shard.sync();
+            }
+            Progress progress = snapshot();
+            Properties checkpoint = new Properties();
+            checkpoint.setProperty("input", input.toAbsolutePath().toString());
+            checkpoint.setProperty("shards", Integer.toString(shards.length));
+            checkpoint.setProperty("column", Integer.toString(column));
+            checkpoint.setProperty("state", progress.getState().name());
+            checkpoint.setProperty("skipped", Long.toString(progress.getSkipped()));
+            checkpoint.setProperty("submitted", Long.toString(progress.getSubmitted()));
+            checkpoint.setProperty("completed", Long.toString(progress.getCompleted()));
+            checkpoint.setProperty("allowed", Long.toString(progress.getAllowed()));
+            checkpoint.setProperty("blocked", Long.toString(progress.getBlocked()));
+            checkpoint.setProperty("failed", Long.toString(progress.getFailed()));
+            checkpoint.setProperty("requests", Long.toString(progress.getRequests()));
+            checkpoint.setProperty("budget", Long.toString(progress.getBudget()));
+            Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1);
+                checkpoint.store(out, "BDEA re-screening checkpoint");
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(tmp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (listener != null) {
+                listener.progress(progress);
+            }
+        }
+
+        /**
+         * Closes the shard files and writes the last checkpoint.
+         */
+        private void close() throws IOException {
+            IOException failure = null;
+            for (Shard shard : shards) {
+                try {
+                    shard.close();
+                } catch (IOException ex) {
+                    failure = ex;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            checkpoint();
+        }
+
+        private Progress snapshot() {
+            long skipped = 0;
+            long submitted = 0;
+            long completed = 0;
+            long allowed = 0;
+            long blocked = 0;
+            long failed = 0;
+            for (Shard shard : shards) {
+                skipped += shard.skipped.get();
+                submitted += shard.submitted.get();
+                completed += shard.completed.get();
+                allowed += shard.allowed.get();
+                blocked += shard.blocked.get();
+                failed += shard.failed.get();
+            }
+            return new Progress(state, skipped, submitted, completed, allowed, blocked, failed, requests(), budget,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+
+    /**
+     * One hash class of domains: its seen set, lookups in flight and result
+     * file.
+     */
+    private final class Shard {
+
+        private final Run run;
+        private final int index;
+        private final Path file;
+        private final Semaphore permits = new Semaphore(concurrency);
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong allowed = new AtomicLong();
+        private final AtomicLong blocked = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private FileChannel channel;
+        private Writer out;
+        private volatile IOException writeError;
+
+        private Shard(Run run, int index) {
+            this.run = run;
+            this.index = index;
+            this.file = run.directory.resolve(String.format("shard-%03d.csv", index));
+        }
+
+        private void run() throws IOException, InterruptedException {
+            Set<String> done = load();
+            synchronized (this) {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+            }
+            Set<String> seen = new HashSet<>();
+            try (BufferedReader in = Files.newBufferedReader(run.input, StandardCharsets.UTF_8)) {
+                String line;
+                while (run.isRunning() && (line = in.readLine()) != null) {
+                    final String domain = BulkChecker.extractDomain(line, column, client.getNormalizer());
+                    if (domain == null || shardOf(domain, shards) != index || !seen.add(domain)) {
+                        continue;
+                    }
+                    if (done.remove(domain)) {
+                        skipped.incrementAndGet();
+                        continue;
+                    }
+                    permits.acquire();
+                    if (!run.reserve(this)) {
+                        permits.release();
+                        run.stop(State.BUDGET_SPENT);
+                        break;
+                    }
+                    client.recheckDomainAsync(domain).whenComplete((verdict, ex) -> {
+                        try {
+                            complete(domain, verdict, ex);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                    if (writeError != null) {
+                        throw writeError;
+                    }
+                }
+            } finally {
+                permits.acquire(concurrency);
+                permits.release(concurrency);
+            }
+            if (writeError != null) {
+                throw writeError;
+            }
+        }
+
+        /**
+         * Reads the results of earlier runs. A torn last row left by a crash
+         * is cut off so new rows start on a line of their own.
+         *
+         * @return Returns the domains that need no new lookup.
+         */
+        private Set<String> load() throws IOException {
+            Set<String> done = new HashSet<>();
+            if (!Files.exists(file)) {
+                return done;
+            }
+            long size = Files.size(file);
+            long end = lastLineBreak(file, size);
+            if (end < size) {
+                //The last row has no line break: it was torn by a crash.
+                try (FileChannel truncate = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    truncate.truncate(end);
+                }
+            }
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    int comma = line.indexOf(',');
+                    if (comma <= 0) {
+                        continue;
+                    }
+                    String result = line.substring(comma + 1);
+                    if (result.equals("ALLOW") || result.equals("BLOCK")
+                            || result.equals("FAILURE," + Verdict.FAIL_INPUT_DOMAIN.getResponse())) {
+                        done.add(line.substring(0, comma));
+                    }
+                }
+            }
+            return done;
+        }
+
+        private void complete(String domain, Verdict verdict, Throwable ex) {
+            String row;
+            if (ex != null) {
+                failed.incrementAndGet();
+                row = domain + ",FAILURE,io_error";
+            } else if (verdict == Verdict.ALLOW) {
+                allowed.incrementAndGet();
+                row = domain + ",ALLOW";
+            } else if (verdict == Verdict.BLOCK) {
+                blocked.incrementAndGet();
+                row = domain + ",BLOCK";
+            } else {
+                failed.incrementAndGet();
+                row = domain + ",FAILURE," + verdict.getResponse();
+                if (verdict == Verdict.FAIL_KEY || verdict == Verdict.FAIL_KEY_LOW_CREDITS) {
+                    run.stop(State.KEY_REJECTED);
+                }
+            }
+            try {
+                synchronized (this) {
+                    if (out == null) {
+                        //The run was torn down while this lookup was in flight.
+                        return;
+                    }
+                    out.write(row);
+                    out.write('\n');
+                }
+            } catch (IOException writeEx) {
+                writeError = writeEx;
+            }
+            completed.incrementAndGet();
+        }
+
+        private synchronized void sync() throws IOException {
+            if (out != null) {
+                out.flush();
+                channel.force(false);
+            }
+        }
+
+        private synchronized void close() throws IOException {
+            if (out != null) {
+                sync();
+                out.close();
+                out = null;
+            }
+        }
+    }
+
+    private static long lastLineBreak(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            for (long position = size - 1; position >= 0; position--) {
+                one.clear();
+                channel.read(one, position);
+                if (one.get(0) == '\n') {
+                    return position + 1;
+                }
+            }
+            return 0;
+        }
+    }
+}
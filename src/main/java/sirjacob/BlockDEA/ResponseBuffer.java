@@ -0,0 +1,118 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable, growable byte buffer holding one response body. The client keeps
+ * one per thread, so reading a response does not allocate once the buffer has
+ * grown to the size of a typical response. Responses larger than
+ * {@value #MAX_SIZE} bytes are refused, and a buffer that grew past
+ * {@value #RETAINED_SIZE} bytes is shrunk again when it is cleared, so an
+ * odd large response does not stay allocated for the life of the thread.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class ResponseBuffer {
+
+    /**
+     * Largest response body accepted, in bytes. BDEA's answers are a few
+     * hundred bytes at most.
+     */
+    public static final int MAX_SIZE = 64 * 1024;
+    /**
+     * Largest capacity kept after {@link #clear()}, in bytes.
+     */
+    public static final int RETAINED_SIZE = 4096;
+
+    private static final int INITIAL_SIZE = 512;
+
+    private byte[] data;
+    private int length;
+
+    /**
+     * Creates an empty buffer with room for a typical Status API response.
+     */
+    public ResponseBuffer() {
+        this.data = new byte[INITIAL_SIZE];
+    }
+
+    /**
+     * @return Returns the backing array; only the first {@link #length()}
+     * bytes are valid.
+     */
+    public byte[] array() {
+        return data;
+    }
+
+    /**
+     * @return Returns the number of valid bytes.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Empties the buffer, keeping its capacity unless it grew past
+     * {@value #RETAINED_SIZE} bytes.
+     */
+    public void clear() {
+        length = 0;
+        if (data.length > RETAINED_SIZE) {
+            data = new byte[INITIAL_SIZE];
+        }
+    }
+
+    /**
+     * Replaces the contents with the UTF-8 bytes of a string.
+     *
+     * @param s Accepts the new contents.
+     */
+    public void set(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        clear();
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, data, 0, bytes.length);
+        length = bytes.length;
+    }
+
+    /**
+     * Appends the rest of a stream to the buffer. The stream is not closed.
+     *
+     * @param in Accepts the stream to read.
+     * @throws IOException If the stream could not be read, or holds more than
+     * {@value #MAX_SIZE} bytes in total.
+     */
+    public void readFrom(InputStream in) throws IOException {
+        while (true) {
+            if (length >= MAX_SIZE) {
+                if (in.read() < 0) {
+                    return;
+                }
+                throw new IOException("Response is larger than " + MAX_SIZE + " bytes");
+            }
+            ensure(1);
+            int read = in.read(data, length, Math.min(data.length, MAX_SIZE) - length);
+            if (read < 0) {
+                return;
+            }
+            length += read;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new String(data, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > data.length) {
+            int needed = length + extra;
+            byte[] grown = new byte[Math.min(Math.max(data.length * 2, needed), Math.max(MAX_SIZE, needed))];
+            System.arraycopy(data, 0, grown, 0, length);
+            data = grown;
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model for the GUI's result log. Rows are kept in a ring buffer, so the
+ * oldest rows are dropped once the capacity is reached and adding a row never
+ * shifts the others. The newest row is shown first.
+ * <p>
+ * {@link #add(String, Verdict)} and {@link #add(String, String)} may be
+ * called from any thread. Rows are queued and applied on the event dispatch
+ * thread at most once per {@link #FRAME_INTERVAL}, with one table event per
+ * batch, so bulk checks cannot flood the GUI. Everything else must be called
+ * on the event dispatch thread.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class ResultLogModel extends AbstractTableModel {
+
+    /**
+     * Default number of rows kept.
+     */
+    public static final int DEFAULT_CAPACITY = 200_000;
+    /**
+     * Shortest time between two batches of rows, in milliseconds (~30 frames
+     * per second).
+     */
+    public static final int FRAME_INTERVAL = 33;
+
+    private static final String[] COLUMNS = {"Time", "Domain", "Result"};
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    /**
+     * Which rows are shown.
+     */
+    public enum Filter {
+        ALL("All results"),
+        ALLOW("Allowed"),
+        BLOCK("Blocked"),
+        FAILURE("Failures"),
+        MESSAGE("Key checks");
+
+        private final String label;
+
+        Filter(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @param entry Accepts a row.
+         * @return Returns true if the row is shown under this filter.
+         */
+        public boolean accepts(Entry entry) {
+            Verdict verdict = entry.getVerdict();
+            switch (this) {
+                case ALLOW:
+                    return verdict == Verdict.ALLOW;
+                case BLOCK:
+                    return verdict == Verdict.BLOCK;
+                case FAILURE:
+                    return verdict != null && verdict.isFailure();
+                case MESSAGE:
+                    return verdict == null;
+                default:
+                    return true;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * One row of the log: a verdict for a domain, or a message such as a key
+     * status.
+     */
+    public static final class Entry {
+
+        private final long time;
+        private final String subject;
+        private final Verdict verdict;
+        private final String message;
+
+        private Entry(long time, String subject, Verdict verdict, String message) {
+            this.time = time;
+            this.subject = subject;
+            this.verdict = verdict;
+            this.message = message;
+        }
+
+        /**
+         * @return Returns when the row was added, in milliseconds since the
+         * epoch.
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * @return Returns the domain checked, or what the message is about.
+         */
+        public String getSubject() {
+            return subject;
+        }
+
+        /**
+         * @return Returns the verdict, or null if the row is a message.
+         */
+        public Verdict getVerdict() {
+            return verdict;
+        }
+
+        /**
+         * @return Returns the EasyAPI response for a verdict, or the message.
+         */
+        public String getResult() {
+            return verdict != null ? verdict.getResponse() : message;
+        }
+    }
+
+    private final Entry[] ring;
+    /**
+     * Sequence numbers of the rows shown while a filter other than
+     * {@link Filter#ALL} is set, oldest first; also a ring buffer.
+     */
+    private final long[] view;
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Timer timer;
+    /**
+     * Sequence number of the oldest row kept and of the next row added.
+     */
+    private long first;
+    private long next;
+    private int viewStart;
+    private int viewCount;
+    private Filter filter = Filter.ALL;
+
+    /**
+     * Creates a model keeping {@link #DEFAULT_CAPACITY} rows.
+     */
+    public ResultLogModel() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Accepts the number of rows kept.
+     */
+    public ResultLogModel(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.ring = new Entry[capacity];
+        this.view = new long[capacity];
+        this.timer = new Timer(FRAME_INTERVAL, e -> flush());
+        timer.setRepeats(false);
+    }
+
+    /**
+     * Queues a verdict row. May be called from any thread.
+     *
+     * @param domain Accepts the domain that was checked.
+     * @param verdict Accepts the verdict for the domain.
+     */
+    public void add(String domain, Verdict verdict) {
+        enqueue(new Entry(System.currentTimeMillis(), domain, verdict, null));
+    }
+
+    /**
+     * Queues a message row. May be called from any thread.
+     *
+     * @param subject Accepts what the message is about.
+     * @param message Accepts the message.
+     */
+    public void add(String subject, String message) {
+        enqueue(new Entry(System.currentTimeMillis(), subject, null, message));
+    }
+
+    /**
+     * Removes every row, including rows not applied yet.
+     */
+    public void clear() {
+        pending.clear();
+        for (long seq = first; seq < next; seq++) {
+            ring[index(seq)] = null;
+        }
+        first = next;
+        viewCount = 0;
+        fireTableDataChanged();
+    }
+
+    /**
+     * @return Returns the rows shown.
+     */
+    public Filter getFilter() {
+        return filter;
+    }
+
+    /**
+     * @param filter Accepts which rows to show.
+     */
+    public void setFilter(Filter filter) {
+        this.filter = filter;
+        viewStart = 0;
+        viewCount = 0;
+        if (filter != Filter.ALL) {
+            for (long seq = first; seq < next; seq++) {
+                if (filter.accepts(ring[index(seq)])) {
+                    view[viewCount++] = seq;
+                }
+            }
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * @return Returns the number of rows kept, shown or not.
+     */
+    public int getSize() {
+        return (int) (next - first);
+    }
+
+    /**
+     * @return Returns the number of rows kept.
+     */
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * @param row Accepts a row index of the table, 0 being the newest row.
+     * @return Returns the row.
+     */
+    public Entry getEntry(int row) {
+        long seq;
+        if (filter == Filter.ALL) {
+            seq = next - 1 - row;
+        } else {
+            seq = view[(viewStart + viewCount - 1 - row) % view.length];
+        }
+        return ring[index(seq)];
+    }
+
+    /**
+     * @return Returns the rows shown, oldest first, e.g. to export them off
+     * the event dispatch thread.
+     */
+    public List<Entry> getEntries() {
+        int rows = getRowCount();
+        List<Entry> entries = new ArrayList<>(rows);
+        for (int row = rows - 1; row >= 0; row--) {
+            entries.add(getEntry(row));
+        }
+        return entries;
+    }
+
+    /**
+     * Writes rows as CSV (RFC 4180) with a header line: the local time of the
+     * row, the domain or subject, and the EasyAPI response or message.
+     *
+     * @param entries Accepts the rows to write.
+     * @param out Accepts the destination; it is not closed.
+     * @throws IOException If the rows could not be written.
+     */
+    public static void writeCsv(List<Entry> entries, Writer out) throws IOException {
+        out.write("time,domain,result\r\n");
+        ZoneId zone = ZoneId.systemDefault();
+        for (Entry entry : entries) {
+            out.write(LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.getTime()), zone).toString());
+            out.write(',');
+            writeCsvField(out, entry.getSubject());
+            out.write(',');
+            writeCsvField(out, entry.getResult());
+            out.write("\r\n");
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return filter == Filter.ALL ? getSize() : viewCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Entry entry = getEntry(row);
+        switch (column) {
+            case 0:
+                return TIME.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.getTime()), ZoneId.systemDefault()));
+            case 1:
+                return entry.getSubject();
+            default:
+                return entry.getVerdict() != null ? entry.getVerdict().name() + " (" + entry.getResult() + ")" : entry.getResult();
+        }
+    }
+
+    private void enqueue(Entry entry) {
+        pending.add(entry);
+        if (scheduled.compareAndSet(false, true)) {
+            if (SwingUtilities.isEventDispatchThread()) {
+                timer.start();
+            } else {
+                SwingUtilities.invokeLater(timer::start);
+            }
+        }
+    }
+
+    /**
+     * Applies the queued rows as one batch. Rows pushed out of the ring are
+     * removed from the bottom of the table, new rows inserted at the top.
+     */
+    private void flush() {
+        scheduled.set(false);
+        int before = getRowCount();
+        int added = 0;
+        int dropped = 0;
+        Entry entry;
+        while ((entry = pending.poll()) != null) {
+            if (next - first == ring.length) {
+                ring[index(first)] = null;
+                first++;
+                if (filter == Filter.ALL) {
+                    dropped++;
+                } else if (viewCount > 0 && view[viewStart] == first - 1) {
+                    viewStart = (viewStart + 1) % view.length;
+                    viewCount--;
+                    dropped++;
+                }
+            }
+            ring[index(next)] = entry;
+            if (filter == Filter.ALL) {
+                added++;
+            } else if (filter.accepts(entry)) {
+                view[(viewStart + viewCount) % view.length] = next;
+                viewCount++;
+                added++;
+            }
+            next++;
+        }
+        if (added == 0 && dropped == 0) {
+            return;
+        }
+        if (dropped > before) {
+            //Rows were both added and dropped within the batch.
+            fireTableDataChanged();
+            return;
+        }
+        if (dropped > 0) {
+            fireTableRowsDeleted(before - dropped, before - 1);
+        }
+        if (added > 0) {
+            fireTableRowsInserted(0, added - 1);
+        }
+    }
+
+    private int index(long seq) {
+        return (int) (seq % ring.length);
+    }
+
+    private static void writeCsvField(Writer out, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
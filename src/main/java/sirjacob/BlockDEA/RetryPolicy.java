@@ -0,0 +1,93 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether a failed EasyAPI lookup is tried again and how long to wait
+ * first. Only transient failures are retried: I/O errors (other than
+ * interruption), fail_server and responses that could not be understood. The
+ * wait before retry n is a random time between 0 and
+ * {@code min(maxDelay, baseDelay * 2^(n-1))} ("full jitter"), so clients that
+ * failed together do not retry together.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class RetryPolicy {
+
+    /**
+     * Makes every lookup exactly once.
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0);
+
+    private final int maxAttempts;
+    private final long baseDelay;
+    private final long maxDelay;
+
+    /**
+     * @param maxAttempts Accepts the total number of attempts, including the
+     * first.
+     * @param baseDelay Accepts the backoff before the first retry, in
+     * milliseconds.
+     * @param maxDelay Accepts the upper bound of any single backoff, in
+     * milliseconds.
+     */
+    public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay) {
+        if (maxAttempts < 1 || baseDelay < 0 || maxDelay < baseDelay) {
+            throw new IllegalArgumentException("Attempts must be positive and 0 <= base delay <= max delay");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * @param verdict Accepts a verdict returned by the EasyAPI.
+     * @return Returns true if the verdict is a transient failure worth
+     * retrying.
+     */
+    public static boolean isRetryable(Verdict verdict) {
+        return verdict == Verdict.FAIL_SERVER || verdict == Verdict.UNKNOWN;
+    }
+
+    /**
+     * @param ex Accepts the exception a request failed with.
+     * @return Returns true unless the request was interrupted; timeouts are
+     * retryable.
+     */
+    public static boolean isRetryable(IOException ex) {
+        return !(ex instanceof InterruptedIOException) || ex instanceof SocketTimeoutException;
+    }
+
+    /**
+     * @param attempt Accepts the number of attempts made so far.
+     * @return Returns true if another attempt is allowed.
+     */
+    public boolean canRetry(int attempt) {
+        return attempt < maxAttempts;
+    }
+
+    /**
+     * @param attempt Accepts the number of attempts made so far, at least 1.
+     * @return Returns a jittered backoff in milliseconds to wait before the
+     * next attempt.
+     */
+    public long backoff(int attempt) {
+        if (baseDelay == 0) {
+            return 0;
+        }
+        int shift = Math.min(30, Math.max(0, attempt - 1));
+        long cap = Math.min(maxDelay, baseDelay << shift);
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * @return Returns the total number of attempts, including the first.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
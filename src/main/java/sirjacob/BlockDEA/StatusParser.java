@@ -0,0 +1,396 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming parser for the Status API response. Instead of building a map of
+ * the whole JSON document it walks the bytes once, picks out the known fields
+ * and skips everything else. Numbers are parsed straight from the bytes and
+ * the common status words (ok, active, good, low, exhausted) are returned as
+ * shared constants, so the only strings allocated are the two timestamps.
+ * <p>
+ * Numeric fields are accepted either as JSON numbers or as quoted strings,
+ * since BDEA has sent both.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class StatusParser {
+
+    private static final byte[] REQUEST_STATUS = ascii("request_status");
+    private static final byte[] APIKEYSTATUS = ascii("apikeystatus");
+    private static final byte[] SERVERTIME = ascii("servertime");
+    private static final byte[] VERSION = ascii("version");
+    private static final byte[] CREDITS = ascii("credits");
+    private static final byte[] CREDITS_TIME = ascii("credits_time");
+    private static final byte[] COMMERCIAL_CREDIT_STATUS = ascii("commercial_credit_status");
+    private static final byte[] COMMERCIAL_CREDIT_STATUS_PERCENT = ascii("commercial_credit_status_percent");
+    private static final String[] KNOWN_VALUES = {"ok", "active", "inactive", "good", "low", "exhausted", "failed"};
+    private static final byte[][] KNOWN_VALUE_BYTES = new byte[KNOWN_VALUES.length][];
+    private static final double[] POW10 = new double[23];
+
+    static {
+        for (int i = 0; i < KNOWN_VALUES.length; i++) {
+            KNOWN_VALUE_BYTES[i] = ascii(KNOWN_VALUES[i]);
+        }
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private final byte[] data;
+    private final int end;
+    private int pos;
+    private int numberStart;
+    private int numberEnd;
+
+    private StatusParser(byte[] data, int offset, int length) {
+        this.data = data;
+        this.pos = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * @param response Accepts a buffer holding a Status API response.
+     * @return Returns the parsed key status.
+     * @throws IOException If the response is not a JSON object or a known
+     * field has a malformed value.
+     */
+    public static KeyStatus parse(ResponseBuffer response) throws IOException {
+        return parse(response.array(), 0, response.length());
+    }
+
+    /**
+     * @param data Accepts the buffer holding the response.
+     * @param offset Accepts the offset of the first byte of the response.
+     * @param length Accepts the number of bytes in the response.
+     * @return Returns the parsed key status.
+     * @throws IOException If the response is not a JSON object or a known
+     * field has a malformed value.
+     */
+    public static KeyStatus parse(byte[] data, int offset, int length) throws IOException {
+        return new StatusParser(data, offset, length).parseObject();
+    }
+
+    private KeyStatus parseObject() throws IOException {
+        String requestStatus = null;
+        String apiKeyStatus = null;
+        String serverTime = null;
+        double version = 0;
+        long credits = KeyStatus.UNKNOWN_CREDITS;
+        String creditsTime = null;
+        String commercialCreditStatus = null;
+        double commercialCreditPercent = 0;
+        expect('{');
+        if (peek() == '}') {
+            pos++;
+        } else {
+            while (true) {
+                expect('"');
+                int keyStart = pos;
+                skipStringBody();
+                int keyEnd = pos - 1;
+                expect(':');
+                skipWhitespace();
+                if (matches(keyStart, keyEnd, REQUEST_STATUS)) {
+                    requestStatus = readString();
+                } else if (matches(keyStart, keyEnd, APIKEYSTATUS)) {
+                    apiKeyStatus = readString();
+                } else if (matches(keyStart, keyEnd, SERVERTIME)) {
+                    serverTime = readString();
+                } else if (matches(keyStart, keyEnd, VERSION)) {
+                    version = readDouble();
+                } else if (matches(keyStart, keyEnd, CREDITS)) {
+                    credits = readLong(KeyStatus.UNKNOWN_CREDITS);
+                } else if (matches(keyStart, keyEnd, CREDITS_TIME)) {
+                    creditsTime = readString();
+                } else if (matches(keyStart, keyEnd, COMMERCIAL_CREDIT_STATUS)) {
+                    commercialCreditStatus = readString();
+                } else if (matches(keyStart, keyEnd, COMMERCIAL_CREDIT_STATUS_PERCENT)) {
+                    commercialCreditPercent = readDouble();
+                } else {
+                    skipValue();
+                }
+                byte next = peek();
+                pos++;
+                if (next == '}') {
+                    break;
+                } else if (next != ',') {
+                    throw error("Expected , or }");
+                }
+                skipWhitespace();
+            }
+        }
+        return new KeyStatus(requestStatus, apiKeyStatus, serverTime, version, credits, creditsTime, commercialCreditStatus, commercialCreditPercent);
+    }
+
+    /**
+     * Reads a string or null. Known status words are returned as constants.
+     */
+    private String readString() throws IOException {
+        if (peek() == 'n') {
+            skipValue();
+            return null;
+        }
+        expect('"');
+        int start = pos;
+        boolean escaped = skipStringBody();
+        int stop = pos - 1;
+        if (!escaped) {
+            for (int i = 0; i < KNOWN_VALUE_BYTES.length; i++) {
+                if (matches(start, stop, KNOWN_VALUE_BYTES[i])) {
+                    return KNOWN_VALUES[i];
+                }
+            }
+            return new String(data, start, stop - start, StandardCharsets.UTF_8);
+        }
+        return unescape(start, stop);
+    }
+
+    private double readDouble() throws IOException {
+        if (!readNumber()) {
+            return 0;
+        }
+        return parseDouble(numberStart, numberEnd);
+    }
+
+    /**
+     * Reads an integer, rejecting values that do not fit in a long.
+     *
+     * @param missing Accepts the value returned for null and empty strings.
+     */
+    private long readLong(long missing) throws IOException {
+        if (!readNumber()) {
+            return missing;
+        }
+        int i = numberStart;
+        boolean negative = data[i] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == numberEnd) {
+            throw error("Malformed integer");
+        }
+        long value = 0;
+        for (; i < numberEnd; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                throw error("Malformed integer");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Locates a number, quoted or not, moves past it and records where its
+     * characters start and end.
+     *
+     * @return Returns false for JSON null and empty strings.
+     */
+    private boolean readNumber() throws IOException {
+        if (peek() == 'n') {
+            skipValue();
+            return false;
+        }
+        int start;
+        int stop;
+        if (data[pos] == '"') {
+            pos++;
+            start = pos;
+            skipStringBody();
+            stop = pos - 1;
+        } else {
+            start = pos;
+            while (pos < end && isNumberChar(data[pos])) {
+                pos++;
+            }
+            stop = pos;
+        }
+        numberStart = start;
+        numberEnd = stop;
+        return start != stop;
+    }
+
+    /**
+     * Fast path for plain decimals: the digits are collected into a long and
+     * divided by a power of ten, which is exact (correctly rounded) while
+     * both fit in a double's 53-bit mantissa. Anything else falls back to
+     * {@link Double#parseDouble(String)}.
+     */
+    private double parseDouble(int start, int stop) throws IOException {
+        int i = start;
+        boolean negative = data[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int scale = -1;
+        int digits = 0;
+        for (; i < stop; i++) {
+            byte b = data[i];
+            if (b == '.' && scale < 0) {
+                scale = 0;
+            } else if (b >= '0' && b <= '9' && digits < 15) {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else {
+                return parseDoubleSlow(start, stop);
+            }
+        }
+        if (digits == 0) {
+            throw error("Malformed number");
+        }
+        double value = scale > 0 ? mantissa / POW10[scale] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private double parseDoubleSlow(int start, int stop) throws IOException {
+        try {
+            return Double.parseDouble(new String(data, start, stop - start, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException ex) {
+            throw error("Malformed number");
+        }
+    }
+
+    /**
+     * Skips any JSON value, including nested objects and arrays.
+     */
+    private void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            if (pos >= end) {
+                throw error("Unexpected end of input");
+            }
+            byte b = data[pos++];
+            if (b == '"') {
+                skipStringBody();
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            } else if (depth == 0) {
+                while (pos < end && data[pos] != ',' && data[pos] != '}' && data[pos] > ' ') {
+                    pos++;
+                }
+            }
+        } while (depth > 0);
+        skipWhitespace();
+    }
+
+    /**
+     * Moves past the closing quote of a string whose opening quote has been
+     * consumed.
+     *
+     * @return Returns true if the string contains escape sequences.
+     */
+    private boolean skipStringBody() throws IOException {
+        boolean escaped = false;
+        while (pos < end) {
+            byte b = data[pos++];
+            if (b == '\\') {
+                escaped = true;
+                pos++;
+            } else if (b == '"') {
+                return escaped;
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private String unescape(int start, int stop) throws IOException {
+        StringBuilder sb = new StringBuilder(stop - start);
+        String raw = new String(data, start, stop - start, StandardCharsets.UTF_8);
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\' || i + 1 >= raw.length()) {
+                sb.append(c);
+                continue;
+            }
+            char e = raw.charAt(++i);
+            switch (e) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'u':
+                    if (i + 4 >= raw.length()) {
+                        throw error("Malformed unicode escape");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException ex) {
+                        throw error("Malformed unicode escape");
+                    }
+                    i += 4;
+                    break;
+                default:
+                    sb.append(e);
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private boolean matches(int start, int stop, byte[] expected) {
+        if (stop - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (data[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void expect(char c) throws IOException {
+        skipWhitespace();
+        if (pos >= end || data[pos] != c) {
+            throw error("Expected " + c);
+        }
+        pos++;
+    }
+
+    private byte peek() throws IOException {
+        skipWhitespace();
+        if (pos >= end) {
+            throw error("Unexpected end of input");
+        }
+        return data[pos];
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && data[pos] <= ' ') {
+            pos++;
+        }
+    }
+
+    private IOException error(String message) {
+        return new IOException("Malformed Status API response: " + message + " at offset " + pos);
+    }
+
+    private static boolean isNumberChar(byte b) {
+        return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,145 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HttpTransport} built on {@link HttpURLConnection}. Every response is
+ * read to the end and closed, which hands the socket back to the JDK's
+ * keep-alive cache so the next request to the same host skips the TCP and DNS
+ * handshake. The number of connections in use at once is bounded by
+ * {@code maxConnections}; callers wait at most the connect timeout for a free
+ * connection. The number of idle sockets the JDK keeps per host is controlled
+ * by the {@code http.maxConnections} system property and should be at least
+ * {@code maxConnections} to avoid reconnecting under load.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class UrlConnectionTransport implements HttpTransport {
+
+    /**
+     * Default connect timeout in milliseconds.
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    /**
+     * Default read timeout in milliseconds.
+     */
+    public static final int DEFAULT_READ_TIMEOUT = 10000;
+    /**
+     * Default number of connections that may be in use at once.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 16;
+
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final Semaphore connections;
+
+    /**
+     * Creates a transport with the default timeouts and pool size.
+     */
+    public UrlConnectionTransport() {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * @param connectTimeout Accepts the connect timeout in milliseconds.
+     * @param readTimeout Accepts the read timeout in milliseconds.
+     * @param maxConnections Accepts the maximum number of connections in use
+     * at once.
+     */
+    public UrlConnectionTransport(int connectTimeout, int readTimeout, int maxConnections) {
+        if (connectTimeout <= 0 || readTimeout <= 0 || maxConnections <= 0) {
+            throw new IllegalArgumentException("Timeouts and pool size must be positive");
+        }
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.connections = new Semaphore(maxConnections, true);
+    }
+
+    @Override
+    public String get(String url) throws IOException {
+        ResponseBuffer response = new ResponseBuffer();
+        get(url, response);
+        return response.toString();
+    }
+
+    @Override
+    public void get(String url, ResponseBuffer response) throws IOException {
+        response.clear();
+        acquire();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(connectTimeout);
+            connection.setReadTimeout(readTimeout);
+            connection.setUseCaches(false);
+            int code;
+            try {
+                code = connection.getResponseCode();
+            } catch (IOException ex) {
+                connection.disconnect();
+                throw ex;
+            }
+            if (code < 200 || code >= 300) {
+                try {
+                    drain(connection.getErrorStream(), response);
+                } catch (IOException ex) {
+                    //Only read so the connection can be reused.
+                }
+                response.clear();
+                throw new IOException("HTTP " + code + " from " + connection.getURL().getHost());
+            }
+            drain(connection.getInputStream(), response);
+        } finally {
+            connections.release();
+        }
+    }
+
+    /**
+     * @return Returns the number of connections that can currently be taken
+     * without waiting.
+     */
+    public int getAvailableConnections() {
+        return connections.availablePermits();
+    }
+
+    /**
+     * Idle sockets are owned by the JDK's keep-alive cache, which closes them
+     * after its own idle timeout, so there is nothing to release here.
+     */
+    @Override
+    public void close() {
+    }
+
+    private void acquire() throws IOException {
+        try {
+            if (!connections.tryAcquire(connectTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SocketTimeoutException("Timed out waiting for a free connection");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a free connection", ex);
+        }
+    }
+
+    /**
+     * Reads a stream to the end and closes it. Reading to the end is what
+     * allows the JDK to reuse the connection.
+     *
+     * @param in Accepts the response stream, may be null.
+     * @param response Accepts the buffer the stream is appended to.
+     */
+    private static void drain(InputStream in, ResponseBuffer response) throws IOException {
+        if (in == null) {
+            return;
+        }
+        try (InputStream stream = in) {
+            response.readFrom(stream);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package sirjacob.BlockDEA;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Answer given by BDEA's EasyAPI (Simple Text Output Method) for a domain.
+ * Possible responses: ok, block, fail_key, fail_server, fail_input_domain,
+ * fail_parameter_count, fail_key_low_credits (EasyAPI v0.2)
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public enum Verdict {
+
+    /**
+     * The domain is not disposable (EasyAPI: ok).
+     */
+    ALLOW("ok"),
+    /**
+     * The domain is disposable and should be blocked (EasyAPI: block).
+     */
+    BLOCK("block"),
+    /**
+     * The API key is invalid or inactive.
+     */
+    FAIL_KEY("fail_key"),
+    /**
+     * BDEA had a problem answering the request.
+     */
+    FAIL_SERVER("fail_server"),
+    /**
+     * The supplied domain was not accepted by BDEA.
+     */
+    FAIL_INPUT_DOMAIN("fail_input_domain"),
+    /**
+     * The request URL did not contain the expected parameters.
+     */
+    FAIL_PARAMETER_COUNT("fail_parameter_count"),
+    /**
+     * The API key does not have enough credits left.
+     */
+    FAIL_KEY_LOW_CREDITS("fail_key_low_credits"),
+    /**
+     * The response was empty or not understood by this client.
+     */
+    UNKNOWN("unknown");
+
+    private static final Verdict[] VALUES = values();
+
+    private final String response;
+    private final byte[] bytes;
+
+    private Verdict(String response) {
+        this.response = response;
+        this.bytes = response.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return Returns the raw EasyAPI response text for this verdict.
+     */
+    public String getResponse() {
+        return response;
+    }
+
+    /**
+     * @return Returns true for every verdict other than {@link #ALLOW} and
+     * {@link #BLOCK}.
+     */
+    public boolean isFailure() {
+        return this != ALLOW && this != BLOCK;
+    }
+
+    /**
+     * @param response Accepts the first line returned by the EasyAPI.
+     * @return Returns the matching verdict, or {@link #UNKNOWN} if the response
+     * is null or not recognized.
+     */
+    public static Verdict fromResponse(String response) {
+        if (response == null) {
+            return UNKNOWN;
+        }
+        String trimmed = response.trim();
+        for (Verdict verdict : values()) {
+            if (verdict.response.equals(trimmed)) {
+                return verdict;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Matches a response body directly from bytes, without decoding it into a
+     * string. Surrounding whitespace is ignored.
+     *
+     * @param data Accepts the buffer holding the response.
+     * @param offset Accepts the offset of the first byte of the response.
+     * @param length Accepts the number of bytes in the response.
+     * @return Returns the matching verdict, or {@link #UNKNOWN} if the
+     * response is empty or not recognized.
+     */
+    public static Verdict fromResponse(byte[] data, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end && data[start] <= ' ') {
+            start++;
+        }
+        while (end > start && data[end - 1] <= ' ') {
+            end--;
+        }
+        int n = end - start;
+        for (Verdict verdict : VALUES) {
+            byte[] expected = verdict.bytes;
+            if (expected.length == n && regionMatches(data, start, expected)) {
+                return verdict;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static boolean regionMatches(byte[] data, int start, byte[] expected) {
+        for (int i = 0; i < expected.length; i++) {
+            if (data[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
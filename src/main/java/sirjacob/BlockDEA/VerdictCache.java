@@ -0,0 +1,294 @@
+package sirjacob.BlockDEA;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory cache of EasyAPI verdicts keyed on the normalized domain.
+ * {@link Verdict#ALLOW} and {@link Verdict#BLOCK} answers are kept for their
+ * own time to live; failures are never cached. With a grace period, an
+ * expired entry is kept for that much longer as the last known verdict:
+ * {@link #get(String)} no longer returns it, but {@link #getStale(String)}
+ * does, so the client can answer with it while it refreshes the entry, or
+ * while BDEA cannot be reached.
+ * <p>
+ * Entries are split across segments, each evicting its least recently used
+ * entry once full, so lookups from many threads rarely contend on the same
+ * lock.
+ * <p>
+ * An entry costs roughly 100 bytes plus the domain itself, so the default of
+ * {@value #DEFAULT_MAX_ENTRIES} entries stays well under 10 MB.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class VerdictCache {
+
+    /**
+     * Default maximum number of cached domains.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 50000;
+    /**
+     * Default time to live of an ALLOW (ok) verdict.
+     */
+    public static final long DEFAULT_ALLOW_TTL = TimeUnit.HOURS.toMillis(1);
+    /**
+     * Default time to live of a BLOCK verdict. Disposable domains rarely stop
+     * being disposable, so these are kept longer.
+     */
+    public static final long DEFAULT_BLOCK_TTL = TimeUnit.HOURS.toMillis(24);
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long allowTtl;
+    private final long blockTtl;
+    private final long gracePeriod;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+
+    /**
+     * Creates a cache with the default size and time to live values.
+     */
+    public VerdictCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_ALLOW_TTL, DEFAULT_BLOCK_TTL);
+    }
+
+    /**
+     * @param maxEntries Accepts the maximum number of cached domains.
+     * @param allowTtl Accepts how long an ALLOW verdict is kept, in
+     * milliseconds.
+     * @param blockTtl Accepts how long a BLOCK verdict is kept, in
+     * milliseconds.
+     */
+    public VerdictCache(int maxEntries, long allowTtl, long blockTtl) {
+        this(maxEntries, allowTtl, blockTtl, 0);
+    }
+
+    /**
+     * @param maxEntries Accepts the maximum number of cached domains.
+     * @param allowTtl Accepts how long an ALLOW verdict is kept, in
+     * milliseconds.
+     * @param blockTtl Accepts how long a BLOCK verdict is kept, in
+     * milliseconds.
+     * @param gracePeriod Accepts how long an expired verdict is still kept
+     * as the last known verdict, in milliseconds, or 0 to drop it on expiry.
+     */
+    public VerdictCache(int maxEntries, long allowTtl, long blockTtl, long gracePeriod) {
+        if (maxEntries <= 0 || allowTtl < 0 || blockTtl < 0 || gracePeriod < 0) {
+            throw new IllegalArgumentException("Cache size must be positive and TTLs/grace period must not be negative");
+        }
+        int perSegment = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.allowTtl = allowTtl;
+        this.blockTtl = blockTtl;
+        this.gracePeriod = gracePeriod;
+    }
+
+    /**
+     * @param domain Accepts a normalized domain.
+     * @return Returns the cached verdict, or null if the domain is not cached
+     * or its entry has expired.
+     */
+    public Verdict get(String domain) {
+        Segment segment = segmentFor(domain);
+        long now = System.currentTimeMillis();
+        synchronized (segment) {
+            CachedVerdict entry = segment.get(domain);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.incrementAndGet();
+                    return entry.verdict;
+                }
+                if (entry.expiresAt + gracePeriod <= now) {
+                    segment.remove(domain);
+                }
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Like {@link #get(String)}, but not counted as a hit or miss and never
+     * removing an entry.
+     *
+     * @param domain Accepts a normalized domain.
+     * @return Returns the cached verdict, or null if the domain is not cached
+     * or its entry has expired.
+     */
+    public Verdict peek(String domain) {
+        Segment segment = segmentFor(domain);
+        long now = System.currentTimeMillis();
+        synchronized (segment) {
+            CachedVerdict entry = segment.get(domain);
+            return entry != null && entry.expiresAt > now ? entry.verdict : null;
+        }
+    }
+
+    /**
+     * Returns the last known verdict of a domain, even if it has expired, as
+     * long as it is within the grace period.
+     *
+     * @param domain Accepts a normalized domain.
+     * @return Returns the cached verdict, or null if the domain is not cached
+     * or its entry is past the grace period.
+     */
+    public Verdict getStale(String domain) {
+        if (gracePeriod == 0) {
+            return null;
+        }
+        Segment segment = segmentFor(domain);
+        long now = System.currentTimeMillis();
+        synchronized (segment) {
+            CachedVerdict entry = segment.get(domain);
+            if (entry != null && entry.expiresAt + gracePeriod > now) {
+                staleHits.incrementAndGet();
+                return entry.verdict;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Caches a verdict. Failure verdicts are ignored.
+     *
+     * @param domain Accepts a normalized domain.
+     * @param verdict Accepts the verdict returned by the EasyAPI.
+     */
+    public void put(String domain, Verdict verdict) {
+        long ttl;
+        if (verdict == Verdict.ALLOW) {
+            ttl = allowTtl;
+        } else if (verdict == Verdict.BLOCK) {
+            ttl = blockTtl;
+        } else {
+            return;
+        }
+        if (ttl == 0) {
+            return;
+        }
+        Segment segment = segmentFor(domain);
+        CachedVerdict entry = new CachedVerdict(verdict, System.currentTimeMillis() + ttl);
+        synchronized (segment) {
+            segment.put(domain, entry);
+        }
+    }
+
+    /**
+     * @param domain Accepts a normalized domain to forget.
+     */
+    public void invalidate(String domain) {
+        Segment segment = segmentFor(domain);
+        synchronized (segment) {
+            segment.remove(domain);
+        }
+    }
+
+    /**
+     * Removes every entry. Hit and miss counters are kept.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return Returns the number of cached domains, including expired entries
+     * that have not been looked up since they left the grace period.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return Returns the number of lookups answered from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Returns the number of lookups that were not in the cache.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Returns the number of lookups answered with an expired verdict
+     * from {@link #getStale(String)}.
+     */
+    public long getStaleHits() {
+        return staleHits.get();
+    }
+
+    /**
+     * @return Returns how long an expired verdict is kept, in milliseconds.
+     */
+    public long getGracePeriod() {
+        return gracePeriod;
+    }
+
+    /**
+     * @return Returns hits divided by all lookups, or 0 if there were none.
+     */
+    public double getHitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    private Segment segmentFor(String domain) {
+        int h = domain.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Cached verdict together with the time (epoch millis) it expires.
+     */
+    private static final class CachedVerdict {
+
+        private final Verdict verdict;
+        private final long expiresAt;
+
+        private CachedVerdict(Verdict verdict, long expiresAt) {
+            this.verdict = verdict;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Access ordered map that drops its least recently used entry when full.
+     */
+    @SuppressWarnings("serial")
+    private static final class Segment extends LinkedHashMap<String, CachedVerdict> {
+
+        private final int maxEntries;
+
+        private Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedVerdict> eldest) {
+            return size() > maxEntries;
+        }
+    }
+}
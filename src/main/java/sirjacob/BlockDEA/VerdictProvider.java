@@ -0,0 +1,68 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+
+/**
+ * A source of verdicts. {@link EasyApiProvider} asks BDEA's EasyAPI and is
+ * what a {@link BlockDeaClient} uses unless another provider is set with
+ * {@link BlockDeaClient.Builder#provider(VerdictProvider)};
+ * {@link FileVerdictProvider} answers from a file, e.g. for load tests that
+ * must not spend credits, and {@link CompositeVerdictProvider} asks several
+ * providers in order, so cheaper sources can answer before the paid one.
+ * <p>
+ * A client only treats answers from an {@link #isAuthoritative()
+ * authoritative} provider as BDEA's, caching and storing them; other answers
+ * are passed on as they are.
+ * <p>
+ * Implementations must be safe for use by several threads at once.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+@FunctionalInterface
+public interface VerdictProvider {
+
+    /**
+     * @param domain Accepts a normalized domain.
+     * @return Returns the verdict, or null if this provider has no answer for
+     * the domain.
+     * @throws IOException If the provider's source could not be reached.
+     */
+    Verdict getVerdict(String domain) throws IOException;
+
+    /**
+     * @return Returns true if the answers come from BDEA itself, so a client
+     * may cache and store them and report them to its circuit breaker. Only
+     * {@link EasyApiProvider} is.
+     */
+    default boolean isAuthoritative() {
+        return false;
+    }
+
+    /**
+     * @param rules Accepts local allow and block rules.
+     * @return Returns a provider answering domains the rules match. A
+     * client's re-checks skip it.
+     */
+    static VerdictProvider of(LocalRules rules) {
+        if (rules == null) {
+            throw new NullPointerException("rules");
+        }
+        LocalVerdictProvider provider = rules::match;
+        return provider;
+    }
+
+    /**
+     * @param cache Accepts a verdict cache.
+     * @return Returns a provider answering domains with an unexpired cached
+     * verdict. Its lookups are not counted in the cache's hits and misses,
+     * and a client's re-checks skip it.
+     */
+    static VerdictProvider of(VerdictCache cache) {
+        if (cache == null) {
+            throw new NullPointerException("cache");
+        }
+        LocalVerdictProvider provider = cache::peek;
+        return provider;
+    }
+}
@@ -0,0 +1,314 @@
+package sirjacob.BlockDEA;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.json.simple.JSONValue;
+
+/**
+ * Small HTTP front end for a {@link BlockDeaClient}, so one warmed client per
+ * host (with its cache, coalescing and rate limiting) can serve any number of
+ * local consumers regardless of their language. Built on the JDK's HTTP
+ * server.
+ * <p>
+ * Endpoints:
+ * <ul>
+ * <li>{@code GET /check/{domain}} answers with the EasyAPI token (ok, block,
+ * fail_...) as text, or as a JSON object when the request has
+ * {@code ?format=json} or accepts application/json. Errors reaching BDEA are
+ * answered with 502, an open circuit breaker with 503.</li>
+ * <li>{@code GET /status} answers with the key status and client figures as
+ * JSON. The client's latest key status is reused for the status max age
+ * unless the request has {@code ?refresh=true}.</li>
+ * </ul>
+ * Lookups run asynchronously, so handler threads never wait on BDEA; cache
+ * hits are answered directly on the handler thread.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class VerdictServer implements Closeable {
+
+    /**
+     * Port used when none is given on the command line.
+     */
+    public static final int DEFAULT_PORT = 8480;
+    /**
+     * Default time a key status is reused by {@code /status}, in milliseconds.
+     */
+    public static final long DEFAULT_STATUS_MAX_AGE = TimeUnit.MINUTES.toMillis(1);
+
+    static {
+        //The JDK server writes headers and body separately; without TCP_NODELAY
+        //small responses wait on the consumer's delayed ACK (~40 ms).
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private static final Logger LOG = Logger.getLogger(VerdictServer.class.getName());
+    private static final String CHECK_PATH = "/check/";
+    private static final String STATUS_PATH = "/status";
+    private static final String TEXT = "text/plain; charset=utf-8";
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private final BlockDeaClient client;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long statusMaxAge;
+    private CompletableFuture<KeyStatus> pendingStatus;
+
+    /**
+     * Starts a server with the default status max age.
+     *
+     * @param client Accepts the client answering the requests; it is not
+     * closed with the server.
+     * @param address Accepts the address to listen on.
+     * @throws IOException If the server could not be started.
+     */
+    public VerdictServer(BlockDeaClient client, InetSocketAddress address) throws IOException {
+        this(client, address, DEFAULT_STATUS_MAX_AGE);
+    }
+
+    /**
+     * @param client Accepts the client answering the requests; it is not
+     * closed with the server.
+     * @param address Accepts the address to listen on.
+     * @param statusMaxAge Accepts how long a key status is reused by
+     * {@code /status}, in milliseconds.
+     * @throws IOException If the server could not be started.
+     */
+    public VerdictServer(BlockDeaClient client, InetSocketAddress address, long statusMaxAge) throws IOException {
+        this.client = client;
+        this.statusMaxAge = statusMaxAge;
+        this.server = HttpServer.create(address, 1024);
+        this.executor = LookupExecutors.newDaemonPool("bdea-http", Math.max(2, Runtime.getRuntime().availableProcessors()));
+        server.setExecutor(executor);
+        server.createContext(CHECK_PATH, this::check);
+        server.createContext(STATUS_PATH, this::status);
+        server.start();
+    }
+
+    /**
+     * @return Returns the address the server is listening on.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops the server without waiting for open exchanges. The client is left
+     * open.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs a server until the process is killed.
+     * <p>
+     * Usage: {@code VerdictServer [--key KEY] [--bind ADDRESS] [--port N]
+     * [--concurrency N]}. The key may also be supplied through the
+     * BDEA_API_KEY environment variable. The server binds to the loopback
+     * address by default.
+     *
+     * @param args the command line arguments
+     * @throws IOException If the server could not be started.
+     */
+    @SuppressWarnings("resource")
+    public static void main(String[] args) throws IOException {
+        String key = System.getenv("BDEA_API_KEY");
+        String bind = null;
+        int port = DEFAULT_PORT;
+        int concurrency = UrlConnectionTransport.DEFAULT_MAX_CONNECTIONS;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--key":
+                    key = optionValue(args, i++);
+                    break;
+                case "--bind":
+                    bind = optionValue(args, i++);
+                    break;
+                case "--port":
+                    port = Integer.parseInt(optionValue(args, i++));
+                    break;
+                case "--concurrency":
+                    concurrency = Integer.parseInt(optionValue(args, i++));
+                    break;
+                default:
+                    usage();
+                    break;
+            }
+        }
+        if (key == null) {
+            usage();
+        }
+        InetAddress address = bind != null ? InetAddress.getByName(bind) : InetAddress.getLoopbackAddress();
+        BlockDeaClient client = BlockDeaClient.builder(key).maxConnections(concurrency).jmxName("VerdictServer").build();
+        VerdictServer server = new VerdictServer(client, new InetSocketAddress(address, port));
+        System.err.println("Listening on http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/");
+    }
+
+    private static String optionValue(String[] args, int i) {
+        if (i + 1 >= args.length) {
+            usage();
+        }
+        return args[i + 1];
+    }
+
+    private static void usage() {
+        System.err.println("Usage: VerdictServer [--key KEY] [--bind ADDRESS] [--port N] [--concurrency N]");
+        System.exit(2);
+    }
+
+    private void check(final HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, TEXT, "method not allowed");
+            return;
+        }
+        final String domain = exchange.getRequestURI().getPath().substring(CHECK_PATH.length());
+        final boolean json = wantsJson(exchange);
+        if (domain.isEmpty() || domain.indexOf('/') >= 0) {
+            respond(exchange, 400, json ? JSON : TEXT, verdictBody(domain, Verdict.FAIL_INPUT_DOMAIN, json));
+            return;
+        }
+        client.checkDomainAsync(domain).whenComplete((verdict, ex) -> {
+            try {
+                if (ex == null) {
+                    respond(exchange, 200, json ? JSON : TEXT, verdictBody(domain, verdict, json));
+                } else {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    int code = cause instanceof CircuitOpenException ? 503 : 502;
+                    respond(exchange, code, json ? JSON : TEXT, json ? errorJson(cause) : Verdict.FAIL_SERVER.getResponse());
+                }
+            } catch (IOException | RuntimeException writeFailed) {
+                LOG.log(Level.FINE, "Unable to answer " + domain, writeFailed);
+                exchange.close();
+            }
+        });
+    }
+
+    private void status(final HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, TEXT, "method not allowed");
+            return;
+        }
+        String query = exchange.getRequestURI().getRawQuery();
+        boolean refresh = query != null && query.contains("refresh=true");
+        currentStatus(refresh).whenComplete((keyStatus, ex) -> {
+            try {
+                if (ex == null) {
+                    respond(exchange, 200, JSON, statusJson(keyStatus));
+                } else {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    respond(exchange, 502, JSON, errorJson(cause));
+                }
+            } catch (IOException | RuntimeException writeFailed) {
+                LOG.log(Level.FINE, "Unable to answer status request", writeFailed);
+                exchange.close();
+            }
+        });
+    }
+
+    /**
+     * Answers from the client's key status snapshot while it is fresh, so
+     * consumers polling {@code /status} do not each cost a Status API call.
+     * Otherwise one request is made and shared by everyone asking until it
+     * completes.
+     */
+    private CompletableFuture<KeyStatus> currentStatus(boolean refresh) {
+        KeyStatusPoller poller = client.getStatusPoller();
+        KeyStatus snapshot = poller.getStatus();
+        if (!refresh && snapshot != null && poller.getAge() <= statusMaxAge) {
+            return CompletableFuture.completedFuture(snapshot);
+        }
+        synchronized (this) {
+            if (pendingStatus == null || pendingStatus.isDone()) {
+                pendingStatus = client.checkStatusAsync();
+            }
+            return pendingStatus;
+        }
+    }
+
+    private static boolean wantsJson(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null && query.contains("format=json")) {
+            return true;
+        }
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        return accept != null && accept.toLowerCase(Locale.ROOT).contains("application/json");
+    }
+
+    private static String verdictBody(String domain, Verdict verdict, boolean json) {
+        if (!json) {
+            return verdict.getResponse();
+        }
+        return "{\"domain\":\"" + JSONValue.escape(domain)
+                + "\",\"verdict\":\"" + verdict.name()
+                + "\",\"response\":\"" + verdict.getResponse()
+                + "\",\"failure\":" + verdict.isFailure() + "}";
+    }
+
+    private String statusJson(KeyStatus keyStatus) {
+        StringBuilder sb = new StringBuilder(384);
+        sb.append("{\"request_status\":").append(quote(keyStatus.getRequestStatus()))
+                .append(",\"apikeystatus\":").append(quote(keyStatus.getApiKeyStatus()))
+                .append(",\"servertime\":").append(quote(keyStatus.getServerTime()))
+                .append(",\"version\":").append(keyStatus.getVersion())
+                .append(",\"credits\":").append(keyStatus.getCredits() != KeyStatus.UNKNOWN_CREDITS ? Long.toString(keyStatus.getCredits()) : "null")
+                .append(",\"credits_time\":").append(quote(keyStatus.getCreditsTime()))
+                .append(",\"commercial_credit_status\":").append(quote(keyStatus.getCommercialCreditStatus()))
+                .append(",\"commercial_credit_status_percent\":").append(keyStatus.getCommercialCreditPercent())
+                .append(",\"active\":").append(keyStatus.isActive())
+                .append(",\"age_ms\":").append(Math.max(0, client.getStatusPoller().getAge()));
+        VerdictCache cache = client.getCache();
+        sb.append(",\"client\":{\"key_ending\":").append(quote(client.getKeyEnding()))
+                .append(",\"cache_size\":").append(cache != null ? cache.size() : 0)
+                .append(",\"cache_hit_ratio\":").append(cache != null ? cache.getHitRatio() : 0)
+                .append(",\"in_flight_lookups\":").append(client.getInFlightLookupCount())
+                .append(",\"in_flight_requests\":").append(client.getInFlightRequestCount())
+                .append(",\"coalesced\":").append(client.getCoalescedCount());
+        CreditRateLimiter limiter = client.getRateLimiter();
+        if (limiter != null) {
+            sb.append(",\"rate_limiter_mode\":").append(quote(limiter.getMode().name()))
+                    .append(",\"credits_estimate\":").append(limiter.getRemainingCredits());
+        }
+        CircuitBreaker breaker = client.getCircuitBreaker();
+        if (breaker != null) {
+            sb.append(",\"circuit\":").append(quote(breaker.getState().name()));
+        }
+        return sb.append("}}").toString();
+    }
+
+    private static String errorJson(Throwable cause) {
+        return "{\"error\":" + quote(cause.getClass().getSimpleName() + ": " + cause.getMessage()) + "}";
+    }
+
+    private static String quote(String s) {
+        return s == null ? "null" : "\"" + JSONValue.escape(s) + "\"";
+    }
+
+    private static void respond(HttpExchange exchange, int code, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,531 @@
+package sirjacob.BlockDEA;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent store of EasyAPI verdicts that survives restarts. Verdicts are
+ * appended to a log file ({@value #LOG_FILE}) and located through an open
+ * addressing hash index ({@value #INDEX_FILE}) that is memory mapped, so a
+ * restarted client answers from the store as soon as the index is mapped
+ * instead of replaying the whole log.
+ * <p>
+ * Log record layout: timestamp (long, epoch millis), verdict (byte: 0 for
+ * ALLOW, 1 for BLOCK, independent of the {@link Verdict} declaration order),
+ * domain length (short), domain (UTF-8). Index slot layout: domain hash
+ * (long), record offset + 1 (long, 0 marks an empty slot). Expiry is computed
+ * from the stored timestamp using the same per-verdict time to live as
+ * {@link VerdictCache}. {@link #compact()} rewrites the log without superseded
+ * and expired records and can be run periodically.
+ *
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public final class VerdictStore implements Closeable {
+
+    /**
+     * Name of the append-only log inside the store directory.
+     */
+    public static final String LOG_FILE = "verdicts.log";
+    /**
+     * Name of the memory mapped index inside the store directory.
+     */
+    public static final String INDEX_FILE = "verdicts.idx";
+
+    private static final Logger LOG = Logger.getLogger(VerdictStore.class.getName());
+    private static final int MAGIC = 0x42444541; //"BDEA"
+    private static final int FORMAT_VERSION = 1;
+    private static final int LOG_HEADER = 8;
+    private static final int RECORD_HEADER = 11;
+    private static final int INDEX_HEADER = 32;
+    private static final int SLOT = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte CODE_ALLOW = 0;
+    private static final byte CODE_BLOCK = 1;
+
+    private final Path directory;
+    private final long allowTtl;
+    private final long blockTtl;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService compactor;
+    private FileChannel log;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int size;
+    private long logLength;
+
+    /**
+     * Opens (or creates) a store using the default {@link VerdictCache} time
+     * to live values and no periodic compaction.
+     *
+     * @param directory Accepts the directory holding the store files.
+     * @throws IOException If the store could not be opened.
+     */
+    public VerdictStore(Path directory) throws IOException {
+        this(directory, VerdictCache.DEFAULT_ALLOW_TTL, VerdictCache.DEFAULT_BLOCK_TTL, 0);
+    }
+
+    /**
+     * Opens (or creates) a store. If the index is missing or out of date it is
+     * rebuilt from the log.
+     *
+     * @param directory Accepts the directory holding the store files.
+     * @param allowTtl Accepts how long an ALLOW verdict is valid, in
+     * milliseconds.
+     * @param blockTtl Accepts how long a BLOCK verdict is valid, in
+     * milliseconds.
+     * @param compactionInterval Accepts how often {@link #compact()} runs in
+     * the background, in milliseconds, or 0 to only compact on request.
+     * @throws IOException If the store could not be opened.
+     */
+    public VerdictStore(Path directory, long allowTtl, long blockTtl, long compactionInterval) throws IOException {
+        if (allowTtl < 0 || blockTtl < 0 || compactionInterval < 0) {
+            throw new IllegalArgumentException("TTLs and compaction interval must not be negative");
+        }
+        this.directory = directory;
+        this.allowTtl = allowTtl;
+        this.blockTtl = blockTtl;
+        Files.createDirectories(directory);
+        openLog();
+        openIndex();
+        if (compactionInterval > 0) {
+            compactor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "VerdictStore-compactor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            compactor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        compact();
+                    } catch (IOException ex) {
+                        LOG.log(Level.WARNING, "Verdict store compaction failed", ex);
+                    }
+                }
+            }, compactionInterval, compactionInterval, TimeUnit.MILLISECONDS);
+        } else {
+            compactor = null;
+        }
+    }
+
+    /**
+     * @param domain Accepts a normalized domain.
+     * @return Returns the stored verdict, or null if the domain is not stored
+     * or its verdict has expired.
+     * @throws IOException If the log could not be read.
+     */
+    public Verdict get(String domain) throws IOException {
+        lock.readLock().lock();
+        try {
+            long offset = find(domain, hash(domain));
+            if (offset < 0) {
+                return null;
+            }
+            ByteBuffer header = readFully(offset, RECORD_HEADER);
+            long timestamp = header.getLong();
+            Verdict verdict = decode(header.get());
+            return isLive(verdict, timestamp, System.currentTimeMillis()) ? verdict : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Like {@link #get(String)}, but also returns a verdict that has expired
+     * and not been compacted away yet, e.g. to compare a fresh verdict with
+     * the last one known.
+     *
+     * @param domain Accepts a normalized domain.
+     * @return Returns the latest stored verdict, or null if the domain is not
+     * stored.
+     * @throws IOException If the log could not be read.
+     */
+    public Verdict getLatest(String domain) throws IOException {
+        lock.readLock().lock();
+        try {
+            long offset = find(domain, hash(domain));
+            if (offset < 0) {
+                return null;
+            }
+            ByteBuffer header = readFully(offset, RECORD_HEADER);
+            header.position(8);
+            return decode(header.get());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a verdict to the log and points the index at it. Failure
+     * verdicts are ignored.
+     *
+     * @param domain Accepts a normalized domain.
+     * @param verdict Accepts the verdict returned by the EasyAPI.
+     * @throws IOException If the verdict could not be written.
+     */
+    public void put(String domain, Verdict verdict) throws IOException {
+        if (verdict.isFailure()) {
+            return;
+        }
+        put(domain, verdict, System.currentTimeMillis());
+    }
+
+    /**
+     * Passes the latest verdict of every domain in the index to the action,
+     * including expired verdicts that have not been compacted away yet.
+     * Writers wait until the iteration is done.
+     *
+     * @param action Accepts the action to run for each domain and verdict.
+     * @throws IOException If the log could not be read.
+     */
+    public void forEach(BiConsumer<String, Verdict> action) throws IOException {
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < capacity; slot++) {
+                long offset = index.getLong(INDEX_HEADER + slot * SLOT + 8) - 1;
+                if (offset >= 0) {
+                    ByteBuffer header = readFully(offset, RECORD_HEADER);
+                    header.position(8);
+                    Verdict verdict = decode(header.get());
+                    action.accept(domainAt(offset), verdict);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Returns the number of distinct domains in the index, including
+     * expired ones that have not been compacted away yet.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the log keeping only the latest, unexpired verdict of each
+     * domain, then rebuilds the index. Lookups wait while this runs.
+     *
+     * @throws IOException If the store could not be rewritten.
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            long now = System.currentTimeMillis();
+            Path tmp = directory.resolve(LOG_FILE + ".tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeLogHeader(out);
+                for (int slot = 0; slot < capacity; slot++) {
+                    long offset = index.getLong(INDEX_HEADER + slot * SLOT + 8) - 1;
+                    if (offset < 0) {
+                        continue;
+                    }
+                    ByteBuffer header = readFully(offset, RECORD_HEADER);
+                    long timestamp = header.getLong();
+                    Verdict verdict = decode(header.get());
+                    if (isLive(verdict, timestamp, now)) {
+                        ByteBuffer record = readFully(offset, RECORD_HEADER + header.getShort());
+                        while (record.hasRemaining()) {
+                            out.write(record);
+                        }
+                    }
+                }
+                out.force(true);
+            }
+            //Some platforms cannot replace a file that is still open.
+            log.close();
+            try {
+                Files.move(tmp, directory.resolve(LOG_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                //The old log and index are intact; keep serving from them.
+                openLog();
+                Files.deleteIfExists(tmp);
+                throw ex;
+            }
+            openLog();
+            clearIndex(INITIAL_CAPACITY);
+            replay(LOG_HEADER);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops background compaction and flushes both files to disk.
+     *
+     * @throws IOException If the files could not be flushed or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+        lock.writeLock().lock();
+        try {
+            index.force();
+            log.force(true);
+            log.close();
+            indexChannel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(String domain, Verdict verdict, long timestamp) throws IOException {
+        byte[] name = domain.getBytes(StandardCharsets.UTF_8);
+        if (name.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Domain is too long to store");
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + name.length);
+        record.putLong(timestamp).put(verdict == Verdict.ALLOW ? CODE_ALLOW : CODE_BLOCK).putShort((short) name.length).put(name).flip();
+        lock.writeLock().lock();
+        try {
+            long offset = logLength;
+            while (record.hasRemaining()) {
+                log.write(record, offset + record.position());
+            }
+            logLength += record.capacity();
+            indexRecord(domain, offset);
+            index.putLong(16, logLength);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Verdict decode(byte code) throws IOException {
+        switch (code) {
+            case CODE_ALLOW:
+                return Verdict.ALLOW;
+            case CODE_BLOCK:
+                return Verdict.BLOCK;
+            default:
+                throw new IOException("Corrupt verdict log record: unknown verdict code " + code);
+        }
+    }
+
+    private boolean isLive(Verdict verdict, long timestamp, long now) {
+        long ttl = verdict == Verdict.ALLOW ? allowTtl : blockTtl;
+        return timestamp + ttl > now;
+    }
+
+    private void openLog() throws IOException {
+        log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (log.size() < LOG_HEADER) {
+            log.truncate(0);
+            writeLogHeader(log);
+        } else {
+            ByteBuffer header = readFully(0, LOG_HEADER);
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                log.close();
+                throw new IOException("Not a verdict log: " + directory.resolve(LOG_FILE));
+            }
+        }
+        logLength = log.size();
+    }
+
+    private static void writeLogHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.position(LOG_HEADER);
+    }
+
+    /**
+     * Maps the index and brings it up to date with the log. A valid index only
+     * needs the records appended after it was last written to be replayed.
+     */
+    private void openIndex() throws IOException {
+        indexChannel = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long indexed = -1;
+        if (indexChannel.size() >= INDEX_HEADER) {
+            ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER);
+            while (header.hasRemaining() && indexChannel.read(header, header.position()) >= 0) {
+            }
+            header.flip();
+            int cap = header.getInt(8);
+            if (header.getInt(0) == MAGIC && header.getInt(4) == FORMAT_VERSION
+                    && Integer.bitCount(cap) == 1 && indexChannel.size() >= INDEX_HEADER + (long) cap * SLOT) {
+                capacity = cap;
+                size = header.getInt(12);
+                indexed = header.getLong(16);
+                index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER + (long) capacity * SLOT);
+            }
+        }
+        if (indexed < LOG_HEADER || indexed > logLength) {
+            clearIndex(INITIAL_CAPACITY);
+            indexed = LOG_HEADER;
+        }
+        replay(indexed);
+    }
+
+    /**
+     * Indexes every log record from the given offset to the end of the log. A
+     * partially written record at the end (e.g. after a crash) is cut off.
+     */
+    private void replay(long from) throws IOException {
+        long offset = from;
+        while (offset + RECORD_HEADER <= logLength) {
+            ByteBuffer header = readFully(offset, RECORD_HEADER);
+            header.position(9);
+            int length = header.getShort();
+            if (length < 0 || offset + RECORD_HEADER + length > logLength) {
+                break;
+            }
+            ByteBuffer name = readFully(offset + RECORD_HEADER, length);
+            indexRecord(new String(name.array(), StandardCharsets.UTF_8), offset);
+            offset += RECORD_HEADER + length;
+        }
+        if (offset < logLength) {
+            LOG.log(Level.WARNING, "Discarding {0} bytes of incomplete verdict log", logLength - offset);
+            log.truncate(offset);
+            logLength = offset;
+        }
+        index.putLong(16, logLength);
+    }
+
+    private void clearIndex(int cap) throws IOException {
+        capacity = cap;
+        size = 0;
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER + (long) capacity * SLOT);
+        for (int i = 0; i < INDEX_HEADER + capacity * SLOT; i += 8) {
+            index.putLong(i, 0);
+        }
+        index.putInt(0, MAGIC);
+        index.putInt(4, FORMAT_VERSION);
+        index.putInt(8, capacity);
+        index.putLong(16, LOG_HEADER);
+    }
+
+    private void indexRecord(String domain, long offset) throws IOException {
+        long hash = hash(domain);
+        int slot = find(domain, hash, true);
+        int position = INDEX_HEADER + slot * SLOT;
+        if (index.getLong(position + 8) == 0) {
+            size++;
+            index.putInt(12, size);
+        }
+        index.putLong(position, hash);
+        index.putLong(position + 8, offset + 1);
+        if (size * 2 > capacity) {
+            grow();
+        }
+    }
+
+    /**
+     * Doubles the index capacity. Slots store the full hash, so they can be
+     * re-inserted without reading the log.
+     */
+    private void grow() throws IOException {
+        long[] slots = new long[capacity * 2];
+        for (int slot = 0; slot < capacity; slot++) {
+            slots[slot * 2] = index.getLong(INDEX_HEADER + slot * SLOT);
+            slots[slot * 2 + 1] = index.getLong(INDEX_HEADER + slot * SLOT + 8);
+        }
+        int entries = size;
+        long indexed = index.getLong(16);
+        clearIndex(capacity * 2);
+        for (int i = 0; i < slots.length; i += 2) {
+            if (slots[i + 1] != 0) {
+                int slot = (int) (slots[i] & (capacity - 1));
+                while (index.getLong(INDEX_HEADER + slot * SLOT + 8) != 0) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                index.putLong(INDEX_HEADER + slot * SLOT, slots[i]);
+                index.putLong(INDEX_HEADER + slot * SLOT + 8, slots[i + 1]);
+            }
+        }
+        size = entries;
+        index.putInt(12, size);
+        index.putLong(16, indexed);
+    }
+
+    /**
+     * @return Returns the log offset of the domain's latest record, or -1.
+     */
+    private long find(String domain, long hash) throws IOException {
+        int slot = find(domain, hash, false);
+        return slot < 0 ? -1 : index.getLong(INDEX_HEADER + slot * SLOT + 8) - 1;
+    }
+
+    /**
+     * Linear probe for the domain's slot. Hash matches are confirmed against
+     * the domain stored in the log.
+     *
+     * @return Returns the domain's slot; otherwise the first empty slot if
+     * insert is true, or -1.
+     */
+    private int find(String domain, long hash, boolean insert) throws IOException {
+        int slot = (int) (hash & (capacity - 1));
+        while (true) {
+            int position = INDEX_HEADER + slot * SLOT;
+            long offset = index.getLong(position + 8) - 1;
+            if (offset < 0) {
+                return insert ? slot : -1;
+            }
+            if (index.getLong(position) == hash && domainAt(offset).equals(domain)) {
+                return slot;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+
+    private String domainAt(long offset) throws IOException {
+        ByteBuffer header = readFully(offset + 9, 2);
+        ByteBuffer name = readFully(offset + RECORD_HEADER, header.getShort());
+        return new String(name.array(), StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer readFully(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (log.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Verdict log ended unexpectedly");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters of the domain.
+     */
+    private static long hash(String domain) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < domain.length(); i++) {
+            h ^= domain.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
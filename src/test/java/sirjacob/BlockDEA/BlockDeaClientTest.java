@@ -0,0 +1,375 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public class BlockDeaClientTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private VerdictStore store;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    /**
+     * Answers block for domains containing "spam" and ok for the rest.
+     */
+    private final HttpTransport transport = new HttpTransport() {
+        @Override
+        public String get(String url) {
+            requests.incrementAndGet();
+            return url.contains("spam") ? "block" : "ok";
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * Answers ok once released, so lookups can be held in flight.
+     */
+    private final HttpTransport blocking = new HttpTransport() {
+        @Override
+        public String get(String url) throws IOException {
+            requests.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                throw new InterruptedIOException();
+            }
+            return "ok";
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @After
+    public void tearDown() throws IOException {
+        release.countDown();
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private VerdictStore store() throws IOException {
+        Path directory = folder.getRoot().toPath().resolve("store");
+        store = new VerdictStore(directory);
+        return store;
+    }
+
+    @Test
+    public void answersStoredAllowWithAFilter() throws IOException {
+        VerdictStore verdicts = store();
+        verdicts.put("example.com", Verdict.ALLOW);
+        verdicts.put("spam.com", Verdict.BLOCK);
+        BloomFilter filter = BloomFilter.fromStore(verdicts, BloomFilter.DEFAULT_FPP);
+        assertFalse(filter.mightContain("example.com"));
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(transport).cache(null)
+                .store(verdicts).blockFilter(filter).build()) {
+            assertEquals(Verdict.ALLOW, client.checkDomain("example.com"));
+            assertEquals(Verdict.BLOCK, client.checkDomain("spam.com"));
+            assertEquals(0, requests.get());
+        }
+    }
+
+    @Test
+    public void addsStoredBlockToAnOutdatedFilter() throws IOException {
+        VerdictStore verdicts = store();
+        verdicts.put("spam.com", Verdict.BLOCK);
+        BloomFilter filter = BloomFilter.create(100, BloomFilter.DEFAULT_FPP);
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(transport).cache(null)
+                .store(verdicts).blockFilter(filter).build()) {
+            assertEquals(Verdict.BLOCK, client.checkDomain("spam.com"));
+            assertTrue(filter.mightContain("spam.com"));
+            assertEquals(0, requests.get());
+        }
+    }
+
+    @Test
+    public void remembersNewVerdicts() throws IOException {
+        VerdictStore verdicts = store();
+        BloomFilter filter = BloomFilter.create(100, BloomFilter.DEFAULT_FPP);
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(transport).cache(null)
+                .store(verdicts).blockFilter(filter).build()) {
+            assertEquals(Verdict.ALLOW, client.checkDomain("example.com"));
+            assertEquals(Verdict.BLOCK, client.checkDomain("spam.com"));
+            assertEquals(2, requests.get());
+            assertEquals(Verdict.ALLOW, verdicts.get("example.com"));
+            assertEquals(Verdict.BLOCK, verdicts.get("spam.com"));
+            assertTrue(filter.mightContain("spam.com"));
+            assertFalse(filter.mightContain("example.com"));
+            client.checkDomain("example.com");
+            assertEquals(2, requests.get());
+        }
+    }
+
+    @Test
+    public void rebuildsAFullFilterFromTheStore() throws IOException, InterruptedException {
+        VerdictStore verdicts = store();
+        BloomFilter filter = BloomFilter.create(10, 0.01);
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(transport).cache(null)
+                .store(verdicts).blockFilter(filter).build()) {
+            for (int i = 0; i < 30; i++) {
+                client.checkDomain("spam" + i + ".com");
+            }
+            assertTrue(filter.isFull());
+            //The rebuild runs in the background, and domains blocked while it
+            //runs are added right after the swap.
+            for (int i = 0; i < 100 && !containsAll(client.getBlockFilter(), 30); i++) {
+                Thread.sleep(20);
+            }
+            BloomFilter rebuilt = client.getBlockFilter();
+            assertTrue(rebuilt != filter);
+            assertTrue(rebuilt.getCapacity() >= 1024);
+            assertTrue(containsAll(rebuilt, 30));
+        }
+    }
+
+    @Test
+    public void sharesOneLookupBetweenConcurrentChecks() throws Exception {
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(blocking).build()) {
+            List<CompletableFuture<Verdict>> checks = new ArrayList<>();
+            checks.add(client.checkDomainAsync("example.com"));
+            for (int i = 1; i < 8; i++) {
+                checks.add(client.checkDomainAsync("user" + i + "@Example.com"));
+            }
+            assertEquals(7, client.getCoalescedCount());
+            assertEquals(1, client.getInFlightLookupCount());
+            release.countDown();
+            for (CompletableFuture<Verdict> check : checks) {
+                assertEquals(Verdict.ALLOW, check.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, requests.get());
+            assertEquals(0, client.getInFlightLookupCount());
+        }
+    }
+
+    @Test
+    public void sharesOneLookupBetweenBlockingChecks() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try (final BlockDeaClient client = BlockDeaClient.builder("key").transport(blocking).build()) {
+            List<Future<Verdict>> checks = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                checks.add(callers.submit(() -> client.checkDomain("example.com")));
+            }
+            for (int i = 0; i < 250 && client.getCoalescedCount() < 7; i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(7, client.getCoalescedCount());
+            release.countDown();
+            for (Future<Verdict> check : checks) {
+                assertEquals(Verdict.ALLOW, check.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, requests.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void servesStaleWhileOneRefreshRuns() throws IOException, InterruptedException {
+        HttpTransport changing = new HttpTransport() {
+            @Override
+            public String get(String url) throws IOException {
+                if (requests.incrementAndGet() == 1) {
+                    return "ok";
+                }
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    throw new InterruptedIOException();
+                }
+                return "block";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        VerdictCache cache = new VerdictCache(100, 20, 60000, 60000);
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(changing).cache(cache).build()) {
+            assertEquals(Verdict.ALLOW, client.checkDomain("example.com"));
+            Thread.sleep(50);
+            for (int i = 0; i < 5; i++) {
+                assertEquals(Verdict.ALLOW, client.checkDomain("example.com"));
+            }
+            assertEquals(Verdict.ALLOW, client.checkDomainAsync("example.com").getNow(null));
+            assertEquals(1, client.getInFlightLookupCount());
+            release.countDown();
+            for (int i = 0; i < 250 && cache.get("example.com") == null; i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(Verdict.BLOCK, client.checkDomain("example.com"));
+            assertEquals(2, requests.get());
+        }
+    }
+
+    @Test
+    public void keepsServingStaleWhenTheRefreshFails() throws IOException, InterruptedException {
+        HttpTransport failing = new HttpTransport() {
+            @Override
+            public String get(String url) throws IOException {
+                if (requests.incrementAndGet() == 1) {
+                    return "ok";
+                }
+                throw new IOException("unreachable");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        VerdictCache cache = new VerdictCache(100, 20, 60000, 60000);
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(failing).cache(cache).build()) {
+            assertEquals(Verdict.ALLOW, client.checkDomain("example.com"));
+            Thread.sleep(50);
+            assertEquals(Verdict.ALLOW, client.checkDomain("example.com"));
+            for (int i = 0; i < 250 && client.getInFlightLookupCount() > 0; i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(2, requests.get());
+            assertEquals(Verdict.ALLOW, cache.getStale("example.com"));
+            assertEquals(Verdict.ALLOW, client.checkDomain("example.com"));
+        }
+    }
+
+    @Test
+    public void retriesTransientFailures() throws IOException {
+        HttpTransport flaky = new HttpTransport() {
+            @Override
+            public String get(String url) {
+                return requests.incrementAndGet() < 3 ? "fail_server" : "ok";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(flaky)
+                .retryPolicy(new RetryPolicy(3, 0, 0)).build()) {
+            assertEquals(Verdict.ALLOW, client.checkDomain("example.com"));
+            assertEquals(3, requests.get());
+            assertEquals(2, client.getRetryCount());
+        }
+    }
+
+    @Test
+    public void stopsRequestsWhileTheBreakerIsOpen() throws IOException {
+        HttpTransport failing = new HttpTransport() {
+            @Override
+            public String get(String url) {
+                requests.incrementAndGet();
+                return "fail_server";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 1, 60000);
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(failing).cache(null)
+                .circuitBreaker(breaker).circuitOpenVerdict(Verdict.ALLOW).build()) {
+            assertEquals(Verdict.FAIL_SERVER, client.checkDomain("a.com"));
+            assertEquals(Verdict.FAIL_SERVER, client.checkDomain("b.com"));
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+            assertEquals(Verdict.ALLOW, client.checkDomain("c.com"));
+            assertEquals(2, requests.get());
+        }
+    }
+
+    @Test
+    public void usesTheHedgeWhenTheFirstRequestIsSlow() throws IOException, InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        HttpTransport slow = new HttpTransport() {
+            @Override
+            public String get(String url) throws IOException {
+                if (requests.incrementAndGet() == 1) {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        throw new InterruptedIOException();
+                    }
+                    return "ok";
+                }
+                return "block";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(slow).hedging(0.95, 20).build()) {
+            assertEquals(Verdict.BLOCK, client.checkDomain("example.com"));
+            assertEquals(2, requests.get());
+            assertEquals(1, client.getHedgedCount());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void waitsForTheOtherAttemptWhenOneFails() throws IOException {
+        final CountDownLatch hedged = new CountDownLatch(1);
+        final CountDownLatch failed = new CountDownLatch(1);
+        HttpTransport racing = new HttpTransport() {
+            @Override
+            public String get(String url) throws IOException {
+                try {
+                    if (requests.incrementAndGet() == 1) {
+                        hedged.await(5, TimeUnit.SECONDS);
+                        failed.countDown();
+                        return "fail_server";
+                    }
+                    hedged.countDown();
+                    failed.await(5, TimeUnit.SECONDS);
+                    return "ok";
+                } catch (InterruptedException ex) {
+                    throw new InterruptedIOException();
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(racing).hedging(0.95, 20).build()) {
+            assertEquals(Verdict.ALLOW, client.checkDomain("example.com"));
+            assertEquals(2, requests.get());
+        }
+    }
+
+    private static boolean containsAll(BloomFilter filter, int blocked) {
+        for (int i = 0; i < blocked; i++) {
+            if (!filter.mightContain("spam" + i + ".com")) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
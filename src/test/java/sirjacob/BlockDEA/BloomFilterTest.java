@@ -0,0 +1,121 @@
+package sirjacob.BlockDEA;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public class BloomFilterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void containsEveryDomainAdded() {
+        BloomFilter filter = BloomFilter.create(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("d" + i + ".com");
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain("d" + i + ".com"));
+        }
+    }
+
+    @Test
+    public void keepsRoughlyItsFalsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("d" + i + ".com");
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.mightContain("other" + i + ".org")) {
+                falsePositives++;
+            }
+        }
+        assertTrue("False positives: " + falsePositives, falsePositives < 2000);
+        //The rate once full, which is at most the rate the filter was sized for.
+        assertTrue(filter.getFalsePositiveRate() <= 0.01);
+    }
+
+    @Test
+    public void becomesFullAtItsCapacity() {
+        BloomFilter filter = BloomFilter.create(100, 0.01);
+        long capacity = filter.getCapacity();
+        //Rounding the number of hashes may leave a little less room.
+        assertTrue(capacity <= 100 && capacity >= 90);
+        for (int i = 0; i < capacity - 1; i++) {
+            filter.put("d" + i + ".com");
+        }
+        assertFalse(filter.isFull());
+        filter.put("last.com");
+        filter.put("last.com");
+        assertTrue(filter.isFull());
+    }
+
+    @Test
+    public void survivesASaveAndLoad() throws IOException {
+        BloomFilter filter = BloomFilter.create(1000, 0.001);
+        for (int i = 0; i < 500; i++) {
+            filter.put("d" + i + ".com");
+        }
+        Path file = folder.getRoot().toPath().resolve("block.bf");
+        filter.save(file);
+        BloomFilter loaded = BloomFilter.load(file);
+        assertEquals(filter.getBitSize(), loaded.getBitSize());
+        assertEquals(filter.getCapacity(), loaded.getCapacity());
+        assertEquals(filter.getApproximateCount(), loaded.getApproximateCount());
+        assertEquals(filter.getFalsePositiveRate(), loaded.getFalsePositiveRate(), 0);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(filter.mightContain("d" + i + ".com"), loaded.mightContain("d" + i + ".com"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherData() throws IOException {
+        BloomFilter.readFrom(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+
+    @Test
+    public void roundTripsThroughStreams() throws IOException {
+        BloomFilter filter = BloomFilter.create(10, 0.1);
+        filter.put("example.com");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        filter.writeTo(out);
+        assertTrue(BloomFilter.readFrom(new ByteArrayInputStream(out.toByteArray())).mightContain("example.com"));
+    }
+
+    @Test
+    public void rebuildsBlockedDomainsFromAStore() throws IOException {
+        try (VerdictStore store = new VerdictStore(folder.getRoot().toPath().resolve("store"))) {
+            for (int i = 0; i < 100; i++) {
+                store.put("d" + i + ".com", i % 2 == 0 ? Verdict.BLOCK : Verdict.ALLOW);
+            }
+            //Only the latest verdict counts.
+            store.put("d0.com", Verdict.ALLOW);
+            BloomFilter filter = BloomFilter.fromStore(store, 0.0001);
+            assertTrue(filter.getCapacity() >= 1024);
+            assertEquals(49, filter.getApproximateCount());
+            assertFalse(filter.mightContain("d0.com"));
+            for (int i = 2; i < 100; i += 2) {
+                assertTrue(filter.mightContain("d" + i + ".com"));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidSizing() {
+        BloomFilter.create(100, 1);
+    }
+}
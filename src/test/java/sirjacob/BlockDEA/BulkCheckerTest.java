@@ -0,0 +1,85 @@
+package sirjacob.BlockDEA;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public class BulkCheckerTest {
+
+    /**
+     * Answers block for domains containing "spam" and ok for the rest.
+     */
+    private static final HttpTransport TRANSPORT = new HttpTransport() {
+        @Override
+        public String get(String url) {
+            return url.contains("spam") ? "block" : "ok";
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private static Set<String> rows(StringWriter out) {
+        return new HashSet<>(Arrays.asList(out.toString().split("\n")));
+    }
+
+    @Test
+    public void writesOneRowPerDistinctDomain() throws IOException {
+        StringWriter out = new StringWriter();
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(TRANSPORT).build()) {
+            BulkChecker.Progress progress = new BulkChecker(client, 4, 0, 0).run(new BufferedReader(new StringReader(
+                    "# users\n\na@example.com\nB@Example.com\nspam.com\n")), out, null);
+            assertEquals(5, progress.getLines());
+            assertEquals(0, progress.getRejected());
+            assertEquals(2, progress.getSubmitted());
+            assertEquals(1, progress.getAllowed());
+            assertEquals(1, progress.getBlocked());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("example.com,ALLOW", "spam.com,BLOCK")), rows(out));
+    }
+
+    @Test
+    public void writesRejectedValuesAsInputFailures() throws IOException {
+        StringWriter out = new StringWriter();
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(TRANSPORT).build()) {
+            BulkChecker.Progress progress = new BulkChecker(client, 4, 1, 0).run(new BufferedReader(new StringReader(
+                    "1,not an address\n2,\"Doe, Jane\"\n3,jane@example.com\n4,not an address\n5\n")), out, null);
+            assertEquals(5, progress.getLines());
+            assertEquals(3, progress.getRejected());
+            assertEquals(1, progress.getSubmitted());
+            assertEquals(1, progress.getCompleted());
+        }
+        String[] rows = out.toString().split("\n");
+        assertEquals(4, rows.length);
+        assertEquals(new HashSet<>(Arrays.asList("not an address,FAILURE,fail_input_domain",
+                "\"Doe, Jane\",FAILURE,fail_input_domain", "example.com,ALLOW")), rows(out));
+    }
+
+    @Test
+    public void readsQuotedCsvFields() {
+        assertEquals("a@b.com", BulkChecker.csvField("1,\"a@b.com\",x", 1));
+        assertEquals("Doe, \"J\"", BulkChecker.csvField("\"Doe, \"\"J\"\"\",a@b.com", 0));
+        assertEquals("a@b.com", BulkChecker.csvField("\"Doe, \"\"J\"\"\", a@b.com ", 1));
+        assertNull(BulkChecker.csvField("only", 1));
+    }
+
+    @Test
+    public void quotesFieldsThatNeedIt() {
+        assertEquals("plain", BulkChecker.quote("plain"));
+        assertEquals("\"a,b\"", BulkChecker.quote("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", BulkChecker.quote("say \"hi\""));
+    }
+}
@@ -0,0 +1,94 @@
+package sirjacob.BlockDEA;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public class CircuitBreakerTest {
+
+    @Test
+    public void staysClosedBelowTheMinimumCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 60000);
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void opensAtTheFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 60000);
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+        assertEquals(1, breaker.getTimesOpened());
+    }
+
+    @Test
+    public void forgetsOutcomesOutsideTheWindow() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.75, 60000);
+        breaker.onFailure();
+        breaker.onFailure();
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess();
+        }
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void admitsOneProbeOnceTheOpenDurationHasPassed() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(2, 1, 1, 50);
+        breaker.onFailure();
+        assertFalse(breaker.allowRequest());
+        Thread.sleep(80);
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void closesWhenTheProbeSucceeds() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 1, 0);
+        breaker.onFailure();
+        breaker.onFailure();
+        assertTrue(breaker.allowRequest());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        //The window starts over, so one more failure does not re-open it.
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1, breaker.getTimesOpened());
+    }
+
+    @Test
+    public void reopensWhenTheProbeFails() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 5, 0.5, 0);
+        for (int i = 0; i < 5; i++) {
+            breaker.onFailure();
+        }
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getTimesOpened());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMoreMinimumCallsThanTheWindow() {
+        new CircuitBreaker(5, 6, 0.5, 1000);
+    }
+}
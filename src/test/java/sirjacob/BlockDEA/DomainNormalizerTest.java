@@ -0,0 +1,88 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public class DomainNormalizerTest {
+
+    private static final String SUFFIXES = "// comment\n"
+            + "com\n"
+            + "uk\n"
+            + "co.uk\n"
+            + "*.ck\n"
+            + "!www.ck\n"
+            + "срб extra text\n";
+
+    private static PublicSuffixList suffixes() throws IOException {
+        return PublicSuffixList.read(new StringReader(SUFFIXES));
+    }
+
+    @Test
+    public void extractsTheHost() {
+        DomainNormalizer normalizer = DomainNormalizer.DEFAULT;
+        assertEquals("example.com", normalizer.normalize("User@Example.com"));
+        assertEquals("www.example.com", normalizer.normalize("https://www.example.com/x?y=1"));
+        assertEquals("example.com", normalizer.normalize("  Example.COM.  "));
+        assertEquals("example.com", normalizer.normalize("Jane Doe <jane@example.com>"));
+        assertEquals("xn--bcher-kva.de", normalizer.normalize("bücher.de"));
+    }
+
+    @Test
+    public void returnsCanonicalInputAsIs() {
+        String domain = "mail.example.com";
+        assertSame(domain, DomainNormalizer.DEFAULT.normalize(domain));
+    }
+
+    @Test
+    public void rejectsMalformedInput() {
+        DomainNormalizer normalizer = DomainNormalizer.DEFAULT;
+        assertNull(normalizer.normalize(null));
+        assertNull(normalizer.normalize(""));
+        assertNull(normalizer.normalize("not a domain"));
+        assertNull(normalizer.normalize("user@"));
+        assertNull(normalizer.normalize("127.0.0.1"));
+        assertNull(normalizer.normalize("a..com"));
+        assertNull(normalizer.normalize("-bad.com"));
+    }
+
+    @Test
+    public void findsPublicSuffixes() throws IOException {
+        PublicSuffixList list = suffixes();
+        assertEquals(6, list.size());
+        assertEquals("com", list.getPublicSuffix("example.com"));
+        assertEquals("co.uk", list.getPublicSuffix("mail.example.co.uk"));
+        assertEquals("bar.ck", list.getPublicSuffix("foo.bar.ck"));
+        assertEquals("ck", list.getPublicSuffix("www.ck"));
+        assertEquals("xn--90a1af", list.getPublicSuffix("example.xn--90a1af"));
+        //Unlisted top level domains are public suffixes by the implicit "*" rule.
+        assertEquals("zz", list.getPublicSuffix("a.b.zz"));
+    }
+
+    @Test
+    public void findsRegistrableDomains() throws IOException {
+        PublicSuffixList list = suffixes();
+        assertEquals("example.co.uk", list.getRegistrableDomain("a.b.example.co.uk"));
+        assertEquals("example.uk", list.getRegistrableDomain("example.uk"));
+        assertEquals("foo.bar.ck", list.getRegistrableDomain("x.foo.bar.ck"));
+        assertEquals("www.ck", list.getRegistrableDomain("www.ck"));
+        assertNull(list.getRegistrableDomain("co.uk"));
+        assertNull(list.getRegistrableDomain("bar.ck"));
+    }
+
+    @Test
+    public void collapsesToTheRegistrableDomain() throws IOException {
+        DomainNormalizer normalizer = new DomainNormalizer(suffixes());
+        assertEquals("example.co.uk", normalizer.normalize("user@mail.Example.co.uk"));
+        assertEquals("example.com", normalizer.normalize("https://a.b.example.com/"));
+        assertNull(normalizer.normalize("co.uk"));
+    }
+}
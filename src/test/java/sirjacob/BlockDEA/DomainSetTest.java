@@ -0,0 +1,94 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public class DomainSetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void matchesExactEntriesOnly() {
+        DomainSet set = DomainSet.of(Arrays.asList("example.com"));
+        assertTrue(set.contains("example.com"));
+        assertFalse(set.contains("mail.example.com"));
+        assertFalse(set.contains("otherexample.com"));
+        assertFalse(set.contains("com"));
+    }
+
+    @Test
+    public void matchesSuffixEntriesAndSubdomains() {
+        DomainSet set = DomainSet.of(Arrays.asList(".example.com", "*.mailinator.com"));
+        assertTrue(set.contains("example.com"));
+        assertTrue(set.contains("a.b.example.com"));
+        assertTrue(set.contains("mailinator.com"));
+        assertTrue(set.contains("x.mailinator.com"));
+        assertFalse(set.contains("badexample.com"));
+        assertFalse(set.contains("com"));
+    }
+
+    @Test
+    public void skipsCommentsBlankLinesAndTrailingText() {
+        DomainSet set = DomainSet.of(Arrays.asList("# rules", "", "   ", "example.com  # our own", "\tother.org\t"));
+        assertEquals(2, set.size());
+        assertTrue(set.contains("example.com"));
+        assertTrue(set.contains("other.org"));
+    }
+
+    @Test
+    public void normalizesEntries() {
+        DomainSet set = DomainSet.of(Arrays.asList("Example.COM", "user@mail.net", "Bücher.de", ".über.tk", "not a domain!", "*.."));
+        assertTrue(set.contains("example.com"));
+        assertTrue(set.contains("mail.net"));
+        assertTrue(set.contains("xn--bcher-kva.de"));
+        assertTrue(set.contains("shop.xn--ber-goa.tk"));
+        assertEquals(4, set.size());
+    }
+
+    @Test
+    public void keepsBarePublicSuffixEntries() throws IOException {
+        DomainNormalizer normalizer = new DomainNormalizer(PublicSuffixList.read(new StringReader("tk\ncom\n")));
+        DomainSet set = DomainSet.of(Arrays.asList(".TK", "mail.example.com"), normalizer);
+        assertTrue(set.contains("anything.tk"));
+        assertTrue(set.contains("tk"));
+        //With a suffix list the entry applies to the whole registrable domain.
+        assertTrue(set.contains("example.com"));
+    }
+
+    @Test
+    public void loadsFiles() throws IOException {
+        Path file = folder.newFile("rules.txt").toPath();
+        Files.write(file, Arrays.asList("# blocked", ".bücher.de"), StandardCharsets.UTF_8);
+        DomainSet set = DomainSet.load(file);
+        assertEquals(1, set.size());
+        assertTrue(set.contains("shop.xn--bcher-kva.de"));
+    }
+
+    @Test
+    public void emptySetMatchesNothing() {
+        assertFalse(DomainSet.EMPTY.contains("example.com"));
+        assertEquals(0, DomainSet.of(Arrays.asList("# nothing")).size());
+    }
+
+    @Test
+    public void reversesLabels() {
+        assertEquals("com.example.mail", DomainSet.reverse("mail.example.com"));
+        assertEquals("localhost", DomainSet.reverse("localhost"));
+    }
+}
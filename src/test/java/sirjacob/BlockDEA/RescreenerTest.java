@@ -0,0 +1,196 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public class RescreenerTest {
+
+    private static final int SHARDS = 2;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private BlockDeaClient client;
+    private Path input;
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        HttpTransport transport = new HttpTransport() {
+            @Override
+            public String get(String url) {
+                if (url.startsWith(BlockDeaClient.STATUS_API_URL)) {
+                    return "{\"request_status\":\"ok\",\"apikeystatus\":\"active\",\"credits\":1000}";
+                }
+                requests.incrementAndGet();
+                return url.contains("spam") ? "block" : "ok";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        client = BlockDeaClient.builder("key").transport(transport).build();
+        input = folder.newFile("input.txt").toPath();
+        Files.write(input, Arrays.asList("a@one.com", "b@two.com", "spam1.com", "one.com", "spam2.net", "three.org", "not a domain"),
+                StandardCharsets.UTF_8);
+        directory = folder.getRoot().toPath().resolve("run");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    private Rescreener.Progress run(long budget) throws IOException {
+        return new Rescreener(client, SHARDS, 2, 0, 60000).run(input, directory, budget, null);
+    }
+
+    /**
+     * @return Returns the result rows of every shard, keyed on domain.
+     */
+    private Map<String, List<String>> rows() throws IOException {
+        Map<String, List<String>> rows = new HashMap<>();
+        for (int i = 0; i < SHARDS; i++) {
+            Path file = directory.resolve(String.format("shard-%03d.csv", i));
+            if (!Files.exists(file)) {
+                continue;
+            }
+            byte[] data = Files.readAllBytes(file);
+            assertTrue(data.length == 0 || data[data.length - 1] == '\n');
+            for (String line : new String(data, StandardCharsets.UTF_8).split("\n")) {
+                if (!line.isEmpty()) {
+                    String domain = line.substring(0, line.indexOf(','));
+                    rows.computeIfAbsent(domain, k -> new ArrayList<>()).add(line.substring(domain.length() + 1));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private Path shardFile(String domain) {
+        return directory.resolve(String.format("shard-%03d.csv", Rescreener.shardOf(domain, SHARDS)));
+    }
+
+    @Test
+    public void checksEveryDistinctDomainOnce() throws IOException {
+        Rescreener.Progress progress = run(-1);
+        assertEquals(Rescreener.State.FINISHED, progress.getState());
+        assertEquals(5, progress.getSubmitted());
+        assertEquals(5, progress.getCompleted());
+        assertEquals(2, progress.getBlocked());
+        assertEquals(3, progress.getAllowed());
+        assertEquals(5, requests.get());
+        Map<String, List<String>> rows = rows();
+        assertEquals(5, rows.size());
+        assertEquals(Arrays.asList("BLOCK"), rows.get("spam1.com"));
+        assertEquals(Arrays.asList("ALLOW"), rows.get("one.com"));
+        assertTrue(Files.exists(directory.resolve(Rescreener.CHECKPOINT_FILE)));
+    }
+
+    @Test
+    public void resumesWithoutRecheckingDoneDomains() throws IOException {
+        run(-1);
+        requests.set(0);
+        Rescreener.Progress progress = run(-1);
+        assertEquals(Rescreener.State.FINISHED, progress.getState());
+        assertEquals(5, progress.getSkipped());
+        assertEquals(0, progress.getSubmitted());
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    public void retriesFailuresOnResume() throws IOException {
+        Files.createDirectories(directory);
+        Files.write(shardFile("three.org"), "three.org,FAILURE,fail_server\n".getBytes(StandardCharsets.UTF_8));
+        Rescreener.Progress progress = run(-1);
+        assertEquals(5, progress.getSubmitted());
+        assertEquals(Arrays.asList("FAILURE,fail_server", "ALLOW"), rows().get("three.org"));
+    }
+
+    @Test
+    public void cutsOffATornLastRow() throws IOException {
+        Files.createDirectories(directory);
+        Files.write(shardFile("one.com"), "one.com,ALLOW\nspam1.com,BL".getBytes(StandardCharsets.UTF_8));
+        Path other = shardFile("spam2.net");
+        if (!other.equals(shardFile("one.com"))) {
+            Files.write(other, "spam2.net,BLOCK\nthree.org,AL".getBytes(StandardCharsets.UTF_8));
+        }
+        Rescreener.Progress progress = run(-1);
+        assertEquals(Rescreener.State.FINISHED, progress.getState());
+        Map<String, List<String>> rows = rows();
+        assertEquals(Arrays.asList("ALLOW"), rows.get("one.com"));
+        assertEquals(Arrays.asList("BLOCK"), rows.get("spam1.com"));
+        assertEquals(Arrays.asList("ALLOW"), rows.get("three.org"));
+        assertEquals(5, rows.size());
+        assertEquals(5 - progress.getSkipped(), requests.get());
+    }
+
+    @Test
+    public void stopsWhenTheBudgetIsSpent() throws IOException {
+        Rescreener.Progress progress = run(2);
+        assertEquals(Rescreener.State.BUDGET_SPENT, progress.getState());
+        assertEquals(2, progress.getBudget());
+        assertTrue(requests.get() <= 2);
+        assertEquals(requests.get(), rows().size());
+        requests.set(0);
+        progress = run(-1);
+        assertEquals(Rescreener.State.FINISHED, progress.getState());
+        assertEquals(5, rows().size());
+        assertEquals(5 - progress.getSkipped(), requests.get());
+    }
+
+    @Test
+    public void countsRetriesAgainstTheBudget() throws IOException {
+        final AtomicInteger attempts = new AtomicInteger();
+        HttpTransport failing = new HttpTransport() {
+            @Override
+            public String get(String url) {
+                if (url.startsWith(BlockDeaClient.STATUS_API_URL)) {
+                    return "{\"request_status\":\"ok\",\"apikeystatus\":\"active\"}";
+                }
+                attempts.incrementAndGet();
+                return "fail_server";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (BlockDeaClient retrying = BlockDeaClient.builder("key").transport(failing)
+                .retryPolicy(new RetryPolicy(3, 0, 0)).build()) {
+            Rescreener.Progress progress = new Rescreener(retrying, SHARDS, 2, 0, 60000).run(input, directory, 7, null);
+            assertEquals(Rescreener.State.BUDGET_SPENT, progress.getState());
+            assertEquals(2, progress.getSubmitted());
+            assertEquals(6, attempts.get());
+            assertEquals(6, progress.getRequests());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void refusesToResumeWithOtherShards() throws IOException {
+        run(-1);
+        new Rescreener(client, SHARDS + 1, 2, 0, 60000).run(input, directory, -1, null);
+    }
+}
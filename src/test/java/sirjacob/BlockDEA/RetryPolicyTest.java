@@ -0,0 +1,75 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public class RetryPolicyTest {
+
+    @Test
+    public void retriesOnlyTransientVerdicts() {
+        assertTrue(RetryPolicy.isRetryable(Verdict.FAIL_SERVER));
+        assertTrue(RetryPolicy.isRetryable(Verdict.UNKNOWN));
+        assertFalse(RetryPolicy.isRetryable(Verdict.ALLOW));
+        assertFalse(RetryPolicy.isRetryable(Verdict.BLOCK));
+        assertFalse(RetryPolicy.isRetryable(Verdict.FAIL_KEY));
+        assertFalse(RetryPolicy.isRetryable(Verdict.FAIL_INPUT_DOMAIN));
+    }
+
+    @Test
+    public void retriesIoErrorsButNotInterruption() {
+        assertTrue(RetryPolicy.isRetryable(new IOException("reset")));
+        assertTrue(RetryPolicy.isRetryable(new SocketTimeoutException("timeout")));
+        assertFalse(RetryPolicy.isRetryable(new InterruptedIOException("interrupted")));
+    }
+
+    @Test
+    public void countsTheFirstAttempt() {
+        RetryPolicy policy = new RetryPolicy(3, 10, 100);
+        assertTrue(policy.canRetry(1));
+        assertTrue(policy.canRetry(2));
+        assertFalse(policy.canRetry(3));
+        assertFalse(RetryPolicy.NONE.canRetry(1));
+        assertEquals(1, RetryPolicy.NONE.getMaxAttempts());
+    }
+
+    @Test
+    public void keepsBackoffWithinTheExponentialCap() {
+        RetryPolicy policy = new RetryPolicy(10, 10, 50);
+        for (int i = 0; i < 1000; i++) {
+            long first = policy.backoff(1);
+            assertTrue(first >= 0 && first <= 10);
+            long second = policy.backoff(2);
+            assertTrue(second >= 0 && second <= 20);
+            long late = policy.backoff(40);
+            assertTrue(late >= 0 && late <= 50);
+        }
+        assertEquals(0, RetryPolicy.NONE.backoff(1));
+    }
+
+    @Test
+    public void jittersBackoff() {
+        RetryPolicy policy = new RetryPolicy(2, 1000, 1000);
+        long first = policy.backoff(1);
+        for (int i = 0; i < 100; i++) {
+            if (policy.backoff(1) != first) {
+                return;
+            }
+        }
+        throw new AssertionError("Backoff is not jittered");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAMaxDelayBelowTheBaseDelay() {
+        new RetryPolicy(3, 100, 10);
+    }
+}
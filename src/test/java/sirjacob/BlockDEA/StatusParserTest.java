@@ -0,0 +1,125 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public class StatusParserTest {
+
+    private static KeyStatus parse(String json) throws IOException {
+        byte[] data = json.getBytes(StandardCharsets.UTF_8);
+        return StatusParser.parse(data, 0, data.length);
+    }
+
+    @Test
+    public void parsesAllFields() throws IOException {
+        KeyStatus status = parse("{\"request_status\":\"ok\",\"apikeystatus\":\"active\","
+                + "\"servertime\":\"2016-01-22 12:00:00\",\"version\":1.3,\"credits\":1234,"
+                + "\"credits_time\":\"2016-01-22 11:00:00\",\"commercial_credit_status\":\"good\","
+                + "\"commercial_credit_status_percent\":87.5}");
+        assertTrue(status.isActive());
+        assertEquals("2016-01-22 12:00:00", status.getServerTime());
+        assertEquals(1.3, status.getVersion(), 0);
+        assertEquals(1234, status.getCredits());
+        assertEquals("2016-01-22 11:00:00", status.getCreditsTime());
+        assertEquals("good", status.getCommercialCreditStatus());
+        assertEquals(87.5, status.getCommercialCreditPercent(), 0);
+    }
+
+    @Test
+    public void returnsKnownWordsAsConstants() throws IOException {
+        KeyStatus status = parse("{\"request_status\":\"ok\",\"commercial_credit_status\":\"exhausted\"}");
+        assertSame("ok", status.getRequestStatus());
+        assertSame("exhausted", status.getCommercialCreditStatus());
+    }
+
+    @Test
+    public void acceptsQuotedNumbersAndWhitespace() throws IOException {
+        KeyStatus status = parse(" {\n\t\"version\" : \"1.3\" ,\n\t\"credits\" : \"42\"\n} ");
+        assertEquals(1.3, status.getVersion(), 0);
+        assertEquals(42, status.getCredits());
+    }
+
+    @Test
+    public void reportsMissingFieldsAsUnknown() throws IOException {
+        KeyStatus status = parse("{\"request_status\":\"ok\",\"apikeystatus\":\"active\"}");
+        assertTrue(status.isActive());
+        assertEquals(KeyStatus.UNKNOWN_CREDITS, status.getCredits());
+        assertNull(status.getServerTime());
+        assertNull(status.getCreditsTime());
+        assertNull(status.getCommercialCreditStatus());
+        assertEquals(0, status.getVersion(), 0);
+    }
+
+    @Test
+    public void reportsNullAndEmptyCreditsAsUnknown() throws IOException {
+        assertEquals(KeyStatus.UNKNOWN_CREDITS, parse("{\"credits\":null}").getCredits());
+        assertEquals(KeyStatus.UNKNOWN_CREDITS, parse("{\"credits\":\"\"}").getCredits());
+        assertEquals(KeyStatus.UNKNOWN_CREDITS, parse("{}").getCredits());
+    }
+
+    @Test
+    public void keepsCreditsBeyondIntRange() throws IOException {
+        assertEquals(5000000000L, parse("{\"credits\":5000000000}").getCredits());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsCreditsBeyondLongRange() throws IOException {
+        parse("{\"credits\":99999999999999999999}");
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsFractionalCredits() throws IOException {
+        parse("{\"credits\":12.5}");
+    }
+
+    @Test
+    public void unescapesStrings() throws IOException {
+        KeyStatus status = parse("{\"servertime\":\"a \\\"quoted\\\" \\\\ \\/ \\u00e9\\n\\tz\"}");
+        assertEquals("a \"quoted\" \\ / \u00e9\n\tz", status.getServerTime());
+    }
+
+    @Test
+    public void skipsNestedObjectsAndArrays() throws IOException {
+        KeyStatus status = parse("{\"account\":{\"credits\":1,\"tags\":[\"a\",{\"b\":\"}\"}],\"ok\":true},"
+                + "\"history\":[[1,2],[3,{\"credits\":2}]],\"flag\":false,\"none\":null,"
+                + "\"credits\":7,\"request_status\":\"ok\"}");
+        assertEquals(7, status.getCredits());
+        assertEquals("ok", status.getRequestStatus());
+    }
+
+    @Test
+    public void skipsUnknownKeysWithEscapes() throws IOException {
+        KeyStatus status = parse("{\"odd \\\"key\\\"\":\"x\",\"credits\":3}");
+        assertEquals(3, status.getCredits());
+    }
+
+    @Test
+    public void parsesFromOffset() throws IOException {
+        byte[] data = "xx{\"credits\":9}yy".getBytes(StandardCharsets.UTF_8);
+        assertEquals(9, StatusParser.parse(data, 2, data.length - 4).getCredits());
+    }
+
+    @Test
+    public void rejectsMalformedInput() {
+        String[] inputs = {"", "[]", "{\"credits\":1", "{\"servertime\":\"open}", "{\"credits\":1 \"version\":2}",
+            "{\"credits\":-}", "{\"servertime\":\"\\u12\"}"};
+        for (String input : inputs) {
+            try {
+                parse(input);
+                fail("Accepted " + input);
+            } catch (IOException expected) {
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package sirjacob.BlockDEA;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public class VerdictCacheTest {
+
+    private static final long HOUR = 3600000;
+
+    /**
+     * @return Returns a domain that lands in the same segment as the given
+     * one, using the cache's own spreading of hash codes over 16 segments.
+     */
+    private static String sameSegment(String domain, int n) {
+        int target = segment(domain);
+        for (int i = 0;; i++) {
+            String candidate = "d" + n + "-" + i + ".com";
+            if (segment(candidate) == target) {
+                return candidate;
+            }
+        }
+    }
+
+    private static int segment(String domain) {
+        int h = domain.hashCode();
+        h ^= (h >>> 16);
+        return h & 15;
+    }
+
+    @Test
+    public void cachesAllowAndBlock() {
+        VerdictCache cache = new VerdictCache();
+        cache.put("example.com", Verdict.ALLOW);
+        cache.put("spam.com", Verdict.BLOCK);
+        assertEquals(Verdict.ALLOW, cache.get("example.com"));
+        assertEquals(Verdict.BLOCK, cache.get("spam.com"));
+        assertNull(cache.get("other.org"));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(2 / 3.0, cache.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    public void neverCachesFailures() {
+        VerdictCache cache = new VerdictCache();
+        for (Verdict verdict : Verdict.values()) {
+            if (verdict.isFailure()) {
+                cache.put(verdict.name() + ".com", verdict);
+            }
+        }
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void expiresEachVerdictAfterItsOwnTtl() throws InterruptedException {
+        VerdictCache cache = new VerdictCache(100, 50, HOUR);
+        cache.put("example.com", Verdict.ALLOW);
+        cache.put("spam.com", Verdict.BLOCK);
+        Thread.sleep(100);
+        assertNull(cache.get("example.com"));
+        assertEquals(Verdict.BLOCK, cache.get("spam.com"));
+        //Without a grace period an expired entry is dropped on lookup.
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void zeroTtlDisablesCaching() {
+        VerdictCache cache = new VerdictCache(100, 0, HOUR);
+        cache.put("example.com", Verdict.ALLOW);
+        assertNull(cache.get("example.com"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void keepsExpiredVerdictsForTheGracePeriod() throws InterruptedException {
+        VerdictCache cache = new VerdictCache(100, 50, 50, 200);
+        cache.put("example.com", Verdict.ALLOW);
+        assertNull(cache.getStale("other.org"));
+        Thread.sleep(100);
+        assertNull(cache.get("example.com"));
+        assertEquals(Verdict.ALLOW, cache.getStale("example.com"));
+        assertEquals(1, cache.getStaleHits());
+        Thread.sleep(200);
+        assertNull(cache.getStale("example.com"));
+        assertNull(cache.get("example.com"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void servesNoStaleVerdictsWithoutAGracePeriod() throws InterruptedException {
+        VerdictCache cache = new VerdictCache(100, 50, 50);
+        cache.put("example.com", Verdict.ALLOW);
+        Thread.sleep(100);
+        assertNull(cache.getStale("example.com"));
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedEntry() {
+        //32 entries over 16 segments leaves room for 2 per segment.
+        VerdictCache cache = new VerdictCache(32, HOUR, HOUR);
+        String first = "first.com";
+        String second = sameSegment(first, 1);
+        String third = sameSegment(first, 2);
+        cache.put(first, Verdict.ALLOW);
+        cache.put(second, Verdict.ALLOW);
+        cache.get(first);
+        cache.put(third, Verdict.ALLOW);
+        assertEquals(Verdict.ALLOW, cache.get(first));
+        assertNull(cache.get(second));
+        assertEquals(Verdict.ALLOW, cache.get(third));
+    }
+
+    @Test
+    public void staysWithinItsSize() {
+        VerdictCache cache = new VerdictCache(160, HOUR, HOUR);
+        for (int i = 0; i < 10000; i++) {
+            cache.put("d" + i + ".com", Verdict.ALLOW);
+        }
+        assertTrue(cache.size() <= 160);
+        assertEquals(Verdict.ALLOW, cache.get("d9999.com"));
+    }
+
+    @Test
+    public void peeksWithoutCounting() {
+        VerdictCache cache = new VerdictCache();
+        cache.put("example.com", Verdict.ALLOW);
+        assertEquals(Verdict.ALLOW, cache.peek("example.com"));
+        assertNull(cache.peek("other.org"));
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    public void forgetsInvalidatedAndClearedEntries() {
+        VerdictCache cache = new VerdictCache();
+        cache.put("example.com", Verdict.ALLOW);
+        cache.put("spam.com", Verdict.BLOCK);
+        cache.invalidate("example.com");
+        assertNull(cache.get("example.com"));
+        cache.clear();
+        assertNull(cache.get("spam.com"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,147 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public class VerdictProviderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    /**
+     * Answers block for domains containing "spam" and ok for the rest.
+     */
+    private final HttpTransport transport = new HttpTransport() {
+        @Override
+        public String get(String url) {
+            requests.incrementAndGet();
+            return url.contains("spam") ? "block" : "ok";
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Test
+    public void remembersOnlyAnswersFromBdea() throws IOException {
+        VerdictCache cache = new VerdictCache();
+        FileVerdictProvider file = new FileVerdictProvider(Collections.singletonMap("known.com", Verdict.BLOCK), null);
+        try (VerdictStore store = new VerdictStore(folder.getRoot().toPath());
+                BlockDeaClient client = BlockDeaClient.builder("key").transport(transport).cache(cache).store(store)
+                .provider(new CompositeVerdictProvider(file, new EasyApiProvider("key", transport))).build()) {
+            assertEquals(Verdict.BLOCK, client.checkDomain("known.com"));
+            assertEquals(Verdict.ALLOW, client.checkDomain("other.com"));
+            assertEquals(1, requests.get());
+            assertNull(cache.peek("known.com"));
+            assertNull(store.get("known.com"));
+            assertEquals(Verdict.ALLOW, cache.peek("other.com"));
+            assertEquals(Verdict.ALLOW, store.get("other.com"));
+        }
+    }
+
+    @Test
+    public void neverRemembersAFallbackVerdict() throws IOException {
+        VerdictCache cache = new VerdictCache();
+        try (VerdictStore store = new VerdictStore(folder.getRoot().toPath());
+                BlockDeaClient client = BlockDeaClient.builder("key").transport(transport).cache(cache).store(store)
+                .provider(new FileVerdictProvider(Collections.<String, Verdict>emptyMap(), Verdict.ALLOW)).build()) {
+            assertEquals(Verdict.ALLOW, client.checkDomain("example.com"));
+            assertEquals(0, cache.size());
+            assertEquals(0, store.size());
+            assertEquals(0, requests.get());
+        }
+    }
+
+    @Test
+    public void keepsAnsweringFromFileWhileTheBreakerIsOpen() throws IOException {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1, 1, 60000);
+        breaker.onFailure();
+        FileVerdictProvider file = new FileVerdictProvider(Collections.singletonMap("known.com", Verdict.BLOCK), null);
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(transport).circuitBreaker(breaker)
+                .provider(new CompositeVerdictProvider(file, new EasyApiProvider("key", transport))).build()) {
+            for (int i = 0; i < 5; i++) {
+                assertEquals(Verdict.BLOCK, client.checkDomain("known.com"));
+            }
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+            try {
+                client.checkDomain("other.com");
+                fail("The open breaker let a request through");
+            } catch (CircuitOpenException expected) {
+            }
+            assertEquals(0, requests.get());
+        }
+    }
+
+    @Test
+    public void recheckSkipsTheCacheAdapter() throws IOException {
+        VerdictCache cache = new VerdictCache();
+        cache.put("example.com", Verdict.BLOCK);
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(transport).cache(cache)
+                .provider(new CompositeVerdictProvider(VerdictProvider.of(cache), new EasyApiProvider("key", transport))).build()) {
+            assertEquals(Verdict.BLOCK, client.checkDomain("example.com"));
+            assertEquals(0, requests.get());
+            assertEquals(Verdict.ALLOW, client.recheckDomain("example.com"));
+            assertEquals(1, requests.get());
+            assertEquals(Verdict.ALLOW, cache.peek("example.com"));
+        }
+    }
+
+    @Test
+    public void recheckSkipsTheRulesAdapter() throws IOException {
+        LocalRules rules = new LocalRules(DomainSet.EMPTY, DomainSet.of(Collections.singletonList("example.com")));
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(transport).cache(null)
+                .provider(new CompositeVerdictProvider(VerdictProvider.of(rules), new EasyApiProvider("key", transport))).build()) {
+            assertEquals(Verdict.BLOCK, client.checkDomain("example.com"));
+            assertEquals(Verdict.ALLOW, client.recheckDomain("example.com"));
+            assertEquals(1, requests.get());
+        }
+    }
+
+    @Test
+    public void loadsFilesWithTheClientsNormalizer() throws IOException {
+        Path file = folder.newFile("known.csv").toPath();
+        Files.write(file, Arrays.asList("# known", "user@mail.Example.co.uk,BLOCK", "other.com,ok", "bad.com,FAILURE,fail_server"),
+                StandardCharsets.UTF_8);
+        DomainNormalizer normalizer = new DomainNormalizer(PublicSuffixList.read(new StringReader("uk\nco.uk\ncom\n")));
+        FileVerdictProvider provider = FileVerdictProvider.load(file, null, normalizer);
+        assertEquals(2, provider.size());
+        assertEquals(Verdict.BLOCK, provider.getVerdict("example.co.uk"));
+        assertEquals(Verdict.ALLOW, provider.getVerdict("other.com"));
+        assertNull(provider.getVerdict("bad.com"));
+        try (BlockDeaClient client = BlockDeaClient.builder("key").transport(transport).normalizer(normalizer)
+                .provider(provider).build()) {
+            assertEquals(Verdict.BLOCK, client.checkDomain("someone@shop.example.co.uk"));
+        }
+        assertEquals(Verdict.BLOCK, FileVerdictProvider.load(file).getVerdict("mail.example.co.uk"));
+    }
+
+    @Test
+    public void adaptsTheCacheWithoutCountingMisses() throws IOException {
+        VerdictCache cache = new VerdictCache();
+        cache.put("example.com", Verdict.ALLOW);
+        VerdictProvider provider = VerdictProvider.of(cache);
+        assertEquals(Verdict.ALLOW, provider.getVerdict("example.com"));
+        assertNull(provider.getVerdict("other.com"));
+        assertEquals(0, cache.getHits() + cache.getMisses());
+    }
+}
@@ -0,0 +1,165 @@
+package sirjacob.BlockDEA;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Sir Jacob <https://github.com/SirJacob>
+ * @since 1.4
+ */
+public class VerdictStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void returnsTheLatestVerdict() throws IOException {
+        try (VerdictStore store = new VerdictStore(folder.getRoot().toPath())) {
+            store.put("example.com", Verdict.ALLOW);
+            store.put("mailinator.com", Verdict.BLOCK);
+            store.put("example.com", Verdict.BLOCK);
+            assertEquals(Verdict.BLOCK, store.get("example.com"));
+            assertEquals(Verdict.BLOCK, store.get("mailinator.com"));
+            assertNull(store.get("other.org"));
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    public void ignoresFailures() throws IOException {
+        try (VerdictStore store = new VerdictStore(folder.getRoot().toPath())) {
+            store.put("example.com", Verdict.FAIL_SERVER);
+            assertNull(store.get("example.com"));
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    public void survivesReopening() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (VerdictStore store = new VerdictStore(directory)) {
+            for (int i = 0; i < 3000; i++) {
+                store.put("d" + i + ".com", i % 2 == 0 ? Verdict.ALLOW : Verdict.BLOCK);
+            }
+        }
+        try (VerdictStore store = new VerdictStore(directory)) {
+            assertEquals(3000, store.size());
+            assertEquals(Verdict.ALLOW, store.get("d0.com"));
+            assertEquals(Verdict.BLOCK, store.get("d2999.com"));
+        }
+    }
+
+    @Test
+    public void rebuildsAMissingIndex() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (VerdictStore store = new VerdictStore(directory)) {
+            store.put("example.com", Verdict.ALLOW);
+            store.put("example.com", Verdict.BLOCK);
+        }
+        Files.delete(directory.resolve(VerdictStore.INDEX_FILE));
+        try (VerdictStore store = new VerdictStore(directory)) {
+            assertEquals(1, store.size());
+            assertEquals(Verdict.BLOCK, store.get("example.com"));
+        }
+    }
+
+    @Test
+    public void discardsATornRecord() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (VerdictStore store = new VerdictStore(directory)) {
+            store.put("example.com", Verdict.ALLOW);
+            store.put("mailinator.com", Verdict.BLOCK);
+        }
+        Path log = directory.resolve(VerdictStore.LOG_FILE);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        Files.delete(directory.resolve(VerdictStore.INDEX_FILE));
+        try (VerdictStore store = new VerdictStore(directory)) {
+            assertEquals(Verdict.ALLOW, store.get("example.com"));
+            assertNull(store.get("mailinator.com"));
+            store.put("mailinator.com", Verdict.BLOCK);
+        }
+        try (VerdictStore store = new VerdictStore(directory)) {
+            assertEquals(Verdict.BLOCK, store.get("mailinator.com"));
+        }
+    }
+
+    @Test
+    public void writesStableVerdictCodes() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (VerdictStore store = new VerdictStore(directory)) {
+            store.put("a.com", Verdict.ALLOW);
+            store.put("b.com", Verdict.BLOCK);
+        }
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(directory.resolve(VerdictStore.LOG_FILE)));
+        //Log header, then timestamp (8 bytes) before each record's code.
+        assertEquals(0, log.get(8 + 8));
+        assertEquals(1, log.get(8 + 11 + "a.com".length() + 8));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAnUnknownVerdictCode() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (VerdictStore store = new VerdictStore(directory)) {
+            store.put("a.com", Verdict.ALLOW);
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve(VerdictStore.LOG_FILE), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{7}), 8 + 8);
+        }
+        try (VerdictStore store = new VerdictStore(directory)) {
+            store.get("a.com");
+        }
+    }
+
+    @Test
+    public void compactionDropsSupersededAndExpiredRecords() throws IOException, InterruptedException {
+        Path directory = folder.getRoot().toPath();
+        try (VerdictStore store = new VerdictStore(directory, 50, 60000, 0)) {
+            for (int i = 0; i < 100; i++) {
+                store.put("example.com", i % 2 == 0 ? Verdict.ALLOW : Verdict.BLOCK);
+            }
+            store.put("allowed.com", Verdict.ALLOW);
+            long before = Files.size(directory.resolve(VerdictStore.LOG_FILE));
+            Thread.sleep(100);
+            assertNull(store.get("allowed.com"));
+            assertEquals(Verdict.ALLOW, store.getLatest("allowed.com"));
+            store.compact();
+            assertTrue(Files.size(directory.resolve(VerdictStore.LOG_FILE)) < before);
+            assertEquals(1, store.size());
+            assertEquals(Verdict.BLOCK, store.get("example.com"));
+            assertNull(store.getLatest("allowed.com"));
+        }
+        try (VerdictStore store = new VerdictStore(directory)) {
+            assertEquals(1, store.size());
+            assertEquals(Verdict.BLOCK, store.get("example.com"));
+        }
+    }
+
+    @Test
+    public void visitsEveryDomain() throws IOException {
+        try (VerdictStore store = new VerdictStore(folder.getRoot().toPath())) {
+            store.put("a.com", Verdict.ALLOW);
+            store.put("b.com", Verdict.BLOCK);
+            store.put("a.com", Verdict.BLOCK);
+            Map<String, Verdict> seen = new HashMap<>();
+            store.forEach(seen::put);
+            assertEquals(2, seen.size());
+            assertEquals(Verdict.BLOCK, seen.get("a.com"));
+            assertEquals(Verdict.BLOCK, seen.get("b.com"));
+        }
+    }
+}